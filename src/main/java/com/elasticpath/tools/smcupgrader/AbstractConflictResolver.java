@@ -4,15 +4,46 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Parent class for conflict resolvers.
  */
 public class AbstractConflictResolver {
+	private static final int WRITE_BATCH_SIZE = 16;
+
 	private final GitClient gitClient;
 
+	private final BlobPrefetcher blobPrefetcher;
+
+	private final Set<String> pathsToStage = ConcurrentHashMap.newKeySet();
+
+	private final Set<String> pathsToDelete = ConcurrentHashMap.newKeySet();
+
+	private Executor executor = ForkJoinPool.commonPool();
+
+	private Executor backgroundExecutor = ForkJoinPool.commonPool();
+
 	/**
 	 * Constructor.
 	 *
@@ -20,39 +51,91 @@ public class AbstractConflictResolver {
 	 */
 	public AbstractConflictResolver(final GitClient gitClient) {
 		this.gitClient = gitClient;
+		this.blobPrefetcher = new BlobPrefetcher(gitClient);
 	}
 
 	/**
-	 * Resolve the given conflict by accepting our change.
+	 * Resolve the given conflict by accepting our change. The index is updated by the next call to {@link #applyIndexChanges()}.
 	 *
 	 * @param change the change representing the conflict to resolve
 	 */
 	protected void resolveConflictOurs(final Change change) {
-		if (change.getOurChangeType() == ChangeType.CREATED || change.getOurChangeType() == ChangeType.UPDATED) {
-			replaceContents(change.getPath(), change.getOurVersionSHA(), null);
-			stage(change.getPath());
-		}
-
-		// resolution for other change types not implemented as currently no use case exists to support them
+		applyPlannedResolution(planResolution(new Resolution(change, ConflictResolutionStrategy.ACCEPT_OURS)));
 	}
 
 	/**
-	 * Resolve the given conflict by accepting the incoming change.
+	 * Resolve the given conflict by accepting the incoming change. The index is updated by the next call to {@link #applyIndexChanges()}.
 	 *
 	 * @param change the change representing the conflict to resolve
 	 */
 	protected void resolveConflictTheirs(final Change change) {
-		if (change.getTheirChangeType() == ChangeType.DELETED || change.getOurChangeType() == ChangeType.CREATED) {
-			delete(change.getPath());
-			return;
+		applyPlannedResolution(planResolution(new Resolution(change, ConflictResolutionStrategy.ACCEPT_THEIRS)));
+	}
+
+	/**
+	 * Reduces the given resolution to the file operation that applies it.
+	 *
+	 * @param resolution the resolution
+	 * @return the planned resolution
+	 */
+	public PlannedResolution planResolution(final Resolution resolution) {
+		final Change change = resolution.getChange();
+		final ConflictResolutionStrategy strategy = resolution.getStrategy();
+
+		if (strategy == ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION) {
+			final RecordedResolution recordedResolution = resolution.getRecordedResolution();
+			return new PlannedResolution(change.getPath(), strategy, recordedResolution.getResolvedSHA(),
+					recordedResolution.getResolvedFilePermissions());
+		}
+
+		if (strategy == ConflictResolutionStrategy.ACCEPT_OURS
+				&& (change.getOurChangeType() == ChangeType.CREATED || change.getOurChangeType() == ChangeType.UPDATED)) {
+			return new PlannedResolution(change.getPath(), strategy, change.getOurVersionSHA(), null);
+		}
+
+		if (strategy == ConflictResolutionStrategy.ACCEPT_THEIRS
+				&& change.getTheirChangeType() != ChangeType.DELETED && change.getOurChangeType() != ChangeType.CREATED) {
+			return new PlannedResolution(change.getPath(), strategy, change.getTheirVersionSHA(), change.getTheirFilePermissions());
+		}
+
+		// Accepting theirs otherwise deletes the file; resolution of our other change types is not implemented as currently no use case
+		// exists to support them
+		return new PlannedResolution(change.getPath(), strategy, null, null);
+	}
+
+	/**
+	 * Starts reading the blob written by the given resolution in the background, if it accepts the incoming change or reuses a recorded
+	 * resolution, so that its contents are already in memory when the resolution is applied. Intended to be called as soon as each
+	 * resolution is decided, while the remaining resolutions are still being decided.
+	 *
+	 * @param resolution the decided resolution
+	 */
+	protected void prefetchTargetBlob(final Resolution resolution) {
+		if (resolution.getStrategy() == ConflictResolutionStrategy.ACCEPT_THEIRS
+				|| resolution.getStrategy() == ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION) {
+			blobPrefetcher.prefetch(planResolution(resolution).getTargetSHA(), backgroundExecutor);
 		}
+	}
 
-		replaceContents(change.getPath(), change.getTheirVersionSHA(), change.getTheirFilePermissions());
-		stage(change.getPath());
+	/**
+	 * Applies the given planned resolution to the working directory. The index is updated by the next call to
+	 * {@link #applyIndexChanges()}.
+	 *
+	 * @param plannedResolution the planned resolution to apply
+	 */
+	protected void applyPlannedResolution(final PlannedResolution plannedResolution) {
+		if (plannedResolution.isWrite()) {
+			replaceContents(plannedResolution.getPath(), plannedResolution.getTargetSHA(), plannedResolution.getTargetFilePermissions());
+			stage(plannedResolution.getPath());
+		} else if (plannedResolution.isDeletion()) {
+			delete(plannedResolution.getPath());
+		}
 	}
 
 	/**
 	 * Replace contents of the specified file with the commit specified by hexSha.
+	 * Files that already hold those contents are left untouched, other than their permissions. Contents prefetched by
+	 * {@link #prefetchTargetBlob(Resolution)} are written from memory.
 	 *
 	 * @param repoFile the file to replace
 	 * @param hexSha the sha of the commit to replace with
@@ -60,17 +143,28 @@ public class AbstractConflictResolver {
 	 */
 	protected void replaceContents(final String repoFile, final String hexSha, final FilePermissions filePermissions) {
 		final Path filePath = Paths.get(gitClient.getWorkingDir().getAbsolutePath(), repoFile);
-		try {
-			Files.createDirectories(filePath.getParent());
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
-
 		final File file = filePath.toFile();
-		try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-			gitClient.writeBlobContents(hexSha, fileOutputStream);
-		} catch (final IOException e) {
-			throw new RuntimeException(e);
+
+		final byte[] prefetchedContents = blobPrefetcher.get(hexSha);
+		final boolean upToDate = prefetchedContents == null
+				? gitClient.workingFileMatchesBlob(repoFile, hexSha)
+				: fileHoldsContents(filePath, prefetchedContents);
+		if (!upToDate) {
+			try {
+				Files.createDirectories(filePath.getParent());
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+
+			try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
+				if (prefetchedContents == null) {
+					gitClient.writeBlobContents(hexSha, fileOutputStream);
+				} else {
+					fileOutputStream.write(prefetchedContents);
+				}
+			} catch (final IOException e) {
+				throw new RuntimeException(e);
+			}
 		}
 
 		if (filePermissions != null) {
@@ -80,12 +174,162 @@ public class AbstractConflictResolver {
 		}
 	}
 
+	private static boolean fileHoldsContents(final Path filePath, final byte[] contents) {
+		try {
+			return Files.isRegularFile(filePath, LinkOption.NOFOLLOW_LINKS)
+					&& Files.size(filePath) == contents.length
+					&& Arrays.equals(Files.readAllBytes(filePath), contents);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Sets the executor on which conflicts are processed in parallel. Defaults to the common fork-join pool.
+	 *
+	 * @param executor the executor
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the executor on which blobs are read ahead of being written. It must reject tasks with a
+	 * {@link java.util.concurrent.RejectedExecutionException} rather than run them on the submitting thread, so that reading ahead never
+	 * delays the decisions being made; rejected reads are skipped. Defaults to the common fork-join pool.
+	 *
+	 * @param backgroundExecutor the executor
+	 */
+	public void setBackgroundExecutor(final Executor backgroundExecutor) {
+		this.backgroundExecutor = backgroundExecutor;
+	}
+
+	/**
+	 * Returns the executor on which conflicts are processed in parallel.
+	 *
+	 * @return the executor
+	 */
+	protected Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Applies the given resolutions. The resolved files are written to the working directory in parallel on the {@link #getExecutor()
+	 * executor}, and the git index is then updated once for all of them.
+	 *
+	 * <p>The resolutions that write a blob held in a pack file are applied pack by pack: the resolutions of each pack are applied on a
+	 * single thread, in the order of their blobs in the pack, reading them through one object reader. Each pack file is therefore read
+	 * sequentially rather than in path order, and delta bases are inflated once rather than once per blob. The other resolutions are
+	 * applied in batches of consecutive resolutions.</p>
+	 *
+	 * @param resolutions       the resolutions to apply
+	 * @param targetSHA         returns the SHA of the blob written by a single resolution, or {@code null} if it writes none
+	 * @param resolutionApplier applies a single resolution, by calling {@link #resolveConflictOurs(Change)},
+	 *                          {@link #resolveConflictTheirs(Change)} or {@link #applyPlannedResolution(PlannedResolution)} as
+	 *                          required
+	 * @param <T>               the resolution type
+	 */
+	protected <T> void applyResolutions(final Collection<T> resolutions, final Function<T, String> targetSHA,
+			final Consumer<T> resolutionApplier) {
+		final List<List<T>> groups = groupByPack(resolutions, targetSHA);
+		final List<CompletableFuture<?>> writes = new ArrayList<>();
+		for (final List<T> packResolutions : groups.subList(0, groups.size() - 1)) {
+			writes.add(applyAsync(packResolutions, resolutionApplier));
+		}
+		final List<T> otherResolutions = groups.get(groups.size() - 1);
+		for (int start = 0; start < otherResolutions.size(); start += WRITE_BATCH_SIZE) {
+			writes.add(applyAsync(otherResolutions.subList(start, Math.min(start + WRITE_BATCH_SIZE, otherResolutions.size())),
+					resolutionApplier));
+		}
+		try {
+			CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		} finally {
+			blobPrefetcher.clear();
+		}
+
+		applyIndexChanges();
+	}
+
+	private <T> CompletableFuture<Void> applyAsync(final List<T> resolutions, final Consumer<T> resolutionApplier) {
+		return CompletableFuture.runAsync(() -> gitClient.withBlobReadScope(() -> resolutions.forEach(resolutionApplier)), executor);
+	}
+
+	/**
+	 * Groups the given resolutions by the pack file holding the blob each writes, as by {@link GitClient#groupByPack(Collection)}.
+	 *
+	 * @param resolutions the resolutions
+	 * @param targetSHA   returns the SHA of the blob written by a single resolution, or {@code null} if it writes none
+	 * @param <T>         the resolution type
+	 * @return the resolutions of each pack, in the order of their blobs in the pack, followed by the other resolutions in their given
+	 * order
+	 */
+	private <T> List<List<T>> groupByPack(final Collection<T> resolutions, final Function<T, String> targetSHA) {
+		// Each resolution's target is computed once, as planning a resolution is not free
+		final List<T> resolutionList = new ArrayList<>(resolutions);
+		final List<String> targetSHAs = resolutionList.stream()
+				.map(targetSHA)
+				.collect(Collectors.toList());
+		final List<List<String>> shaGroups = gitClient.groupByPack(targetSHAs.stream()
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList()));
+
+		// The last group of SHAs holds the blobs outside any pack, which join the resolutions that write no blob
+		final int packCount = Math.max(shaGroups.size() - 1, 0);
+		final Map<String, Integer> shaPacks = new HashMap<>();
+		final Map<String, Integer> shaPositions = new HashMap<>();
+		for (int pack = 0; pack < packCount; pack++) {
+			final List<String> shaGroup = shaGroups.get(pack);
+			for (int position = 0; position < shaGroup.size(); position++) {
+				shaPacks.put(shaGroup.get(position), pack);
+				shaPositions.put(shaGroup.get(position), position);
+			}
+		}
+
+		final int[] packs = new int[resolutionList.size()];
+		final int[] positions = new int[resolutionList.size()];
+		for (int index = 0; index < resolutionList.size(); index++) {
+			final String sha = targetSHAs.get(index);
+			packs[index] = sha == null ? packCount : shaPacks.getOrDefault(sha, packCount);
+			positions[index] = sha == null ? 0 : shaPositions.getOrDefault(sha, 0);
+		}
+
+		final List<List<T>> groups = new ArrayList<>();
+		for (int pack = 0; pack <= packCount; pack++) {
+			groups.add(new ArrayList<>());
+		}
+		// The sort is stable, so the other resolutions keep their given order
+		IntStream.range(0, resolutionList.size())
+				.boxed()
+				.sorted(Comparator.<Integer>comparingInt(index -> packs[index]).thenComparingInt(index -> positions[index]))
+				.forEach(index -> groups.get(packs[index]).add(resolutionList.get(index)));
+		return groups;
+	}
+
+	/**
+	 * Applies the index changes for the conflicts resolved since the last call: stages every replaced file and deletes every removed
+	 * file, updating the git index once for each rather than once per file.
+	 */
+	protected void applyIndexChanges() {
+		final List<String> stagedPaths = new ArrayList<>(pathsToStage);
+		pathsToStage.removeAll(stagedPaths);
+		gitClient.stageAll(stagedPaths);
+
+		final List<String> deletedPaths = new ArrayList<>(pathsToDelete);
+		pathsToDelete.removeAll(deletedPaths);
+		gitClient.deleteAll(deletedPaths);
+	}
+
 	private void stage(final String path) {
-		gitClient.stage(path);
+		pathsToStage.add(path);
 	}
 
 	private void delete(final String path) {
-		gitClient.delete(path);
+		pathsToDelete.add(path);
 	}
 
 	protected GitClient getGitClient() {
@@ -0,0 +1,134 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the contents of blobs that are about to be written to the working directory into memory in the background, so that writing them
+ * does not wait on the object database.
+ *
+ * <p>The contents held in memory are limited in total size. Blobs that are too large, or that would exceed the limit, are not
+ * prefetched; like blobs whose prefetch has not completed by the time they are written, they are streamed from the object database
+ * instead.</p>
+ */
+class BlobPrefetcher {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BlobPrefetcher.class);
+
+	private static final long MAX_BLOB_SIZE = 1024L * 1024;
+	private static final long MAX_PREFETCHED_BYTES = 64L * 1024 * 1024;
+
+	private final GitClient gitClient;
+
+	private final Map<String, CompletableFuture<byte[]>> prefetchedContents = new ConcurrentHashMap<>();
+
+	private final AtomicLong prefetchedBytes = new AtomicLong();
+
+	private final AtomicInteger hitCount = new AtomicInteger();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param gitClient the git client
+	 */
+	BlobPrefetcher(final GitClient gitClient) {
+		this.gitClient = gitClient;
+	}
+
+	/**
+	 * Starts reading the contents of the given blob on the given executor, unless it has already been started. The blob is not
+	 * prefetched if the executor rejects the read.
+	 *
+	 * @param hexSha   the SHA of the blob, or {@code null} for none
+	 * @param executor the executor on which to read the blob, which must not run it on the calling thread
+	 */
+	void prefetch(final String hexSha, final Executor executor) {
+		if (hexSha == null || prefetchedContents.containsKey(hexSha)) {
+			return;
+		}
+
+		final CompletableFuture<byte[]> contents = new CompletableFuture<>();
+		if (prefetchedContents.putIfAbsent(hexSha, contents) != null) {
+			return;
+		}
+		try {
+			executor.execute(() -> contents.complete(read(hexSha)));
+		} catch (final RejectedExecutionException e) {
+			contents.complete(null);
+		}
+	}
+
+	/**
+	 * Returns the prefetched contents of the given blob. Never waits for a prefetch that has not completed.
+	 *
+	 * @param hexSha the SHA of the blob
+	 * @return the contents of the blob, or {@code null} if they have not been prefetched
+	 */
+	byte[] get(final String hexSha) {
+		final CompletableFuture<byte[]> contents = prefetchedContents.get(hexSha);
+		if (contents == null || !contents.isDone()) {
+			return null;
+		}
+
+		final byte[] result = contents.join();
+		if (result != null) {
+			hitCount.incrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * Discards all prefetched contents.
+	 */
+	void clear() {
+		if (!prefetchedContents.isEmpty()) {
+			LOGGER.debug("Wrote {} of {} prefetched blob(s) from memory.", hitCount.get(), prefetchedContents.size());
+		}
+
+		// Prefetches still in progress release their share of the limit once they complete
+		prefetchedContents.values().forEach(contents -> contents.thenAccept(result -> {
+			if (result != null) {
+				prefetchedBytes.addAndGet(-result.length);
+			}
+		}));
+		prefetchedContents.clear();
+		hitCount.set(0);
+	}
+
+	private byte[] read(final String hexSha) {
+		final Long size = gitClient.getBlobSizes(Collections.singletonList(hexSha)).get(hexSha);
+		if (size == null || size > MAX_BLOB_SIZE || !reserve(size)) {
+			return null;
+		}
+
+		try {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(size.intValue());
+			gitClient.writeBlobContents(hexSha, outputStream);
+			return outputStream.toByteArray();
+		} catch (final RuntimeException e) {
+			LOGGER.debug("Could not prefetch blob {}", hexSha, e);
+			prefetchedBytes.addAndGet(-size);
+			return null;
+		}
+	}
+
+	private boolean reserve(final long size) {
+		long current;
+		do {
+			current = prefetchedBytes.get();
+			if (current + size > MAX_PREFETCHED_BYTES) {
+				return false;
+			}
+		} while (!prefetchedBytes.compareAndSet(current, current + size));
+		return true;
+	}
+}
@@ -18,6 +18,8 @@ public class Change {
 
 	private final FilePermissions theirFilePermissions;
 
+	private final String baseVersionSHA;
+
 	/**
 	 * Constructor.
 	 *
@@ -41,7 +43,31 @@ public class Change {
 			final String theirVersionSHA,
 			final String ourVersionSHA,
 			final FilePermissions theirFilePermissions) {
+		this(path, theirChangeType, ourChangeType, theirVersionSHA, ourVersionSHA, theirFilePermissions, null);
+	}
+
+	/**
+	 * Constructor for a merge conflict, recording the common ancestor version of the file.
+	 *
+	 * @param path                 the path of the file being changed, relative to the git root, in the source branch.
+	 * @param theirChangeType      the {@link ChangeType} representing the type of change that was performed in the branch being merged.
+	 * @param ourChangeType        the {@link ChangeType} representing the type of change that was performed in the source branch.
+	 * @param theirVersionSHA      the SHA of the Git BLOB containing the version of the file in the target branch.
+	 * @param ourVersionSHA        the SHA of the Git BLOB containing the version of the file in the source branch.
+	 * @param theirFilePermissions the file permissions of the version in the target branch.
+	 * @param baseVersionSHA       the SHA of the Git BLOB containing the version of the file in the merge base of the two branches.
+	 *                             Will be {@code null} when the file did not exist in the merge base.
+	 * @see #Change(String, ChangeType, ChangeType, String, String, FilePermissions)
+	 */
+	public Change(final String path,
+			final ChangeType theirChangeType,
+			final ChangeType ourChangeType,
+			final String theirVersionSHA,
+			final String ourVersionSHA,
+			final FilePermissions theirFilePermissions,
+			final String baseVersionSHA) {
 		this.path = path;
+		this.baseVersionSHA = baseVersionSHA;
 		this.ourChangeType = ourChangeType;
 		this.theirVersionSHA = theirVersionSHA;
 		this.ourVersionSHA = ourVersionSHA;
@@ -96,12 +122,13 @@ public class Change {
 				&& ourChangeType == change.ourChangeType
 				&& Objects.equals(theirVersionSHA, change.theirVersionSHA)
 				&& Objects.equals(ourVersionSHA, change.ourVersionSHA)
-				&& Objects.equals(theirFilePermissions, change.theirFilePermissions);
+				&& Objects.equals(theirFilePermissions, change.theirFilePermissions)
+				&& Objects.equals(baseVersionSHA, change.baseVersionSHA);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(path, theirChangeType, ourChangeType, theirVersionSHA, ourVersionSHA, theirFilePermissions);
+		return Objects.hash(path, theirChangeType, ourChangeType, theirVersionSHA, ourVersionSHA, theirFilePermissions, baseVersionSHA);
 	}
 
 	/**
@@ -136,4 +163,8 @@ public class Change {
 	public FilePermissions getTheirFilePermissions() {
 		return theirFilePermissions;
 	}
+
+	public String getBaseVersionSHA() {
+		return baseVersionSHA;
+	}
 }
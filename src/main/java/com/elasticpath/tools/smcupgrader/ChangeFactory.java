@@ -1,9 +1,9 @@
 package com.elasticpath.tools.smcupgrader;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.eclipse.jgit.diff.DiffEntry;
@@ -19,15 +19,16 @@ import com.elasticpath.tools.smcupgrader.IndexEntry.Stage;
 public class ChangeFactory {
 
 	/**
-	 * Creates a list of {@link Change} instances.
+	 * Creates a list of {@link Change} instances for merge conflicts, one for each conflicting path.
 	 *
-	 * @param conflicts    a mapping of conflicting file names to their {@link IndexDiff.StageState StageState}.
-	 * @param indexEntries the set of {@link IndexEntry} instances representing every index entry in the git database
-	 * @return a list of {@link Change} instances
+	 * @param conflictingIndexEntries the base, ours and theirs stage {@link IndexEntry} instances of every conflicting path
+	 * @return a list of {@link Change} instances, in the order in which their paths first occur
 	 */
-	public List<Change> createChanges(final Map<String, IndexDiff.StageState> conflicts, final Set<IndexEntry> indexEntries) {
-		return conflicts.entrySet().stream()
-				.map(entry -> createChange(entry.getKey(), entry.getValue(), indexEntries))
+	public List<Change> createMergeConflictChanges(final List<IndexEntry> conflictingIndexEntries) {
+		return conflictingIndexEntries.stream()
+				.collect(Collectors.groupingBy(IndexEntry::getPath, LinkedHashMap::new, Collectors.toList()))
+				.entrySet().stream()
+				.map(entry -> createChange(entry.getKey(), entry.getValue()))
 				.collect(Collectors.toList());
 	}
 
@@ -53,26 +54,29 @@ public class ChangeFactory {
 				.collect(Collectors.toList());
 	}
 
-	Change createChange(final String path, final IndexDiff.StageState changeType, final Set<IndexEntry> indexItems) {
+	Change createChange(final String path, final List<IndexEntry> indexItems) {
+		String baseVersionSha = null;
 		String theirVersionSha = null;
 		String ourVersionSha = null;
 
 		for (final IndexEntry indexItem : indexItems) {
-			if (indexItem.getPath().equals(path)) {
-				if (indexItem.getStage() == Stage.OURS) {
-					ourVersionSha = indexItem.getSha();
-				} else if (indexItem.getStage() == Stage.THEIRS) {
-					theirVersionSha = indexItem.getSha();
-				}
+			if (indexItem.getStage() == Stage.BASE) {
+				baseVersionSha = indexItem.getSha();
+			} else if (indexItem.getStage() == Stage.OURS) {
+				ourVersionSha = indexItem.getSha();
+			} else if (indexItem.getStage() == Stage.THEIRS) {
+				theirVersionSha = indexItem.getSha();
 			}
 		}
 
+		final IndexDiff.StageState changeType = createStageState(baseVersionSha != null, ourVersionSha != null, theirVersionSha != null);
 		return new Change(path,
 				createTheirChangeType(changeType),
 				createOurChangeType(changeType),
 				theirVersionSha,
 				ourVersionSha,
-				null);
+				null,
+				baseVersionSha);
 	}
 
 	Change createChange(final DiffEntry diffEntry) {
@@ -106,6 +110,27 @@ public class ChangeFactory {
 		}
 	}
 
+	/**
+	 * Determines the {@link IndexDiff.StageState StageState} of a conflicting path from the stages present in the index, as git status does.
+	 *
+	 * @param hasBase   true if the path has a base stage entry
+	 * @param hasOurs   true if the path has an ours stage entry
+	 * @param hasTheirs true if the path has a theirs stage entry
+	 * @return the stage state
+	 */
+	private static IndexDiff.StageState createStageState(final boolean hasBase, final boolean hasOurs, final boolean hasTheirs) {
+		if (hasOurs && hasTheirs) {
+			return hasBase ? IndexDiff.StageState.BOTH_MODIFIED : IndexDiff.StageState.BOTH_ADDED;
+		}
+		if (hasOurs) {
+			return hasBase ? IndexDiff.StageState.DELETED_BY_THEM : IndexDiff.StageState.ADDED_BY_US;
+		}
+		if (hasTheirs) {
+			return hasBase ? IndexDiff.StageState.DELETED_BY_US : IndexDiff.StageState.ADDED_BY_THEM;
+		}
+		return IndexDiff.StageState.BOTH_DELETED;
+	}
+
 	private static ChangeType createOurChangeType(final IndexDiff.StageState stageState) {
 		switch (stageState) {
 			case BOTH_DELETED:
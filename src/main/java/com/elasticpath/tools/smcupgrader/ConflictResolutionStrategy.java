@@ -6,5 +6,6 @@ package com.elasticpath.tools.smcupgrader;
 public enum ConflictResolutionStrategy {
 	ACCEPT_THEIRS,
 	ACCEPT_OURS,
+	REUSE_RECORDED_RESOLUTION,
 	MANUAL_RESOLUTION_REQUIRED
 }
@@ -2,7 +2,15 @@ package com.elasticpath.tools.smcupgrader;
 
 import static com.elasticpath.tools.smcupgrader.UpgradeController.LOGGER;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.lib.Ref;
@@ -17,6 +25,10 @@ public class DiffConflictResolver extends AbstractConflictResolver {
 
 	private final SafeOverwriteDeterminer safeOverwriteDeterminer;
 
+	private final ResolutionCostEstimator resolutionCostEstimator;
+
+	private boolean upstreamChangesOnly = true;
+
 	/**
 	 * Constructor.
 	 *
@@ -27,6 +39,7 @@ public class DiffConflictResolver extends AbstractConflictResolver {
 		changeFactory = new ChangeFactory();
 		diffResolutionDeterminer = new DiffResolutionDeterminer();
 		safeOverwriteDeterminer = new SafeOverwriteDeterminer(gitClient);
+		resolutionCostEstimator = new ResolutionCostEstimator(gitClient);
 	}
 
 	/**
@@ -36,34 +49,98 @@ public class DiffConflictResolver extends AbstractConflictResolver {
 	 * @param version            the version being upgraded to
 	 */
 	public void resolveDiffConflicts(final String upstreamRemoteName, final String version) {
+		// Start reading the blobs to write as soon as each resolution is decided
+		final List<Resolution> resolutions = decideDiffConflicts(upstreamRemoteName, version, this::prefetchTargetBlob);
+
+		// Apply every decided resolution: file writes in parallel, and a single update of the index
+		applyResolutions(resolutions, resolution -> planResolution(resolution).getTargetSHA(), this::resolveConflict);
+
+		final long resolvedDiffCount = resolutions.stream()
+				.filter(resolution -> resolution.getStrategy() == ConflictResolutionStrategy.ACCEPT_THEIRS)
+				.count();
+		if (resolvedDiffCount > 0) {
+			LOGGER.info("Resolved {} diff(s) by accepting the upstream change.", resolvedDiffCount);
+		}
+	}
+
+	/**
+	 * Plans the resolution of diff conflicts, without modifying the working directory or the index.
+	 *
+	 * @param upstreamRemoteName the name of the upstream remote
+	 * @param version            the version being upgraded to
+	 * @return the planned resolution of each diff conflict
+	 */
+	public List<PlannedResolution> planDiffConflicts(final String upstreamRemoteName, final String version) {
+		return decideDiffConflicts(upstreamRemoteName, version, resolution -> { }).stream()
+				.map(this::planResolution)
+				.sorted(Comparator.comparing(PlannedResolution::getPath))
+				.collect(Collectors.toList());
+	}
+
+	private List<Resolution> decideDiffConflicts(final String upstreamRemoteName, final String version,
+			final Consumer<Resolution> decisionListener) {
 		final Ref releaseBranch = getGitClient().getReleaseBranch(upstreamRemoteName, version);
 		final List<DiffEntry> diff = getGitClient().getDiff(releaseBranch);
 
-		final List<Change> diffConflictChanges = changeFactory.createChanges(diff);
+		final List<Change> diffConflictChanges = scopeToUpstreamChanges(changeFactory.createChanges(diff), releaseBranch);
 
 		LOGGER.info(diffConflictChanges.size() + " non-conflict file(s) found that differ from upstream " + version + " branch.");
 
 		if (!diffConflictChanges.isEmpty()) {
 			LOGGER.info("Processing diffs to attempt automatic resolution...");
+			safeOverwriteDeterminer.prefetch(diffConflictChanges.stream()
+					.map(Change::getPath)
+					.collect(Collectors.toList()), upstreamRemoteName);
 		}
 
-		long resolvedDiffCount = ProcessCollectionInParallelWithProgress.process(diffConflictChanges, change -> {
+		// Decide every resolution in parallel, most expensive first
+		final Queue<Resolution> resolutions = new ConcurrentLinkedQueue<>();
+		ProcessCollectionInParallelWithProgress.process(diffConflictChanges, change -> {
 			ConflictResolutionStrategy strategy = diffResolutionDeterminer.determineResolution(change,
 					() -> safeOverwriteDeterminer.pathIsSafeToOverwrite(change.getPath(), upstreamRemoteName)
 			);
-			synchronized (this) {
-				resolveConflict(change, strategy);
-			}
+			final Resolution resolution = new Resolution(change, strategy);
+			resolutions.add(resolution);
+			decisionListener.accept(resolution);
 			return strategy == ConflictResolutionStrategy.ACCEPT_THEIRS;
-		});
+		}, resolutionCostEstimator.estimateCosts(diffConflictChanges), getExecutor());
 
-		if (resolvedDiffCount > 0) {
-			LOGGER.info("Resolved {} diff(s) by accepting the upstream change.", resolvedDiffCount);
+		return new ArrayList<>(resolutions);
+	}
+
+	/**
+	 * Sets whether only files that the upstream branch has changed since it was last merged are considered for resolution. Files the
+	 * upstream branch has not changed can only differ because of local customizations, which will not be found in the upstream history.
+	 * Enabled by default.
+	 *
+	 * @param upstreamChangesOnly true to only consider files changed by the upstream branch, false to consider every differing file
+	 */
+	public void setUpstreamChangesOnly(final boolean upstreamChangesOnly) {
+		this.upstreamChangesOnly = upstreamChangesOnly;
+	}
+
+	private List<Change> scopeToUpstreamChanges(final List<Change> changes, final Ref releaseBranch) {
+		if (!upstreamChangesOnly) {
+			return changes;
 		}
+
+		final Optional<Set<String>> upstreamChangedPaths = getGitClient().getUpstreamChangedPaths(releaseBranch);
+		if (!upstreamChangedPaths.isPresent()) {
+			LOGGER.debug("No unmerged upstream changes found; considering every file that differs from upstream.");
+			return changes;
+		}
+
+		final List<Change> upstreamChanges = changes.stream()
+				.filter(change -> upstreamChangedPaths.get().contains(change.getPath()))
+				.collect(Collectors.toList());
+		LOGGER.debug("Skipping {} file(s) that differ from upstream but have not changed upstream since the last merge.",
+				changes.size() - upstreamChanges.size());
+		return upstreamChanges;
 	}
 
-	private void resolveConflict(final Change change, final ConflictResolutionStrategy conflictResolutionStrategy) {
-		if (conflictResolutionStrategy == ConflictResolutionStrategy.ACCEPT_THEIRS) {
+	private void resolveConflict(final Resolution resolution) {
+		final Change change = resolution.getChange();
+		if (resolution.getStrategy() == ConflictResolutionStrategy.ACCEPT_THEIRS) {
 			LOGGER.debug("Resolving diff on " + change.getPath() + " by accepting the upstream change.");
 			resolveConflictTheirs(change);
 		} else {
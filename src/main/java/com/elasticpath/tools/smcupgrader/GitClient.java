@@ -2,14 +2,14 @@ package com.elasticpath.tools.smcupgrader;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.lib.AnyObjectId;
-import org.eclipse.jgit.lib.IndexDiff;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
 
@@ -67,49 +67,87 @@ public interface GitClient {
 	void merge(Ref toMerge);
 
 	/**
-	 * Performs a revert operation for the given ref.
+	 * Merges the given ref into the current working branch in memory, and returns the index entries that the merge conflicts would
+	 * produce; that is, the base, ours and theirs stage entries of every path that would conflict. Neither the index nor the working
+	 * directory is modified.
 	 *
-	 * @param toRevert the {@link AnyObjectId} to revert from the current working branch.
+	 * @param toMerge the {@link Ref} to merge
+	 * @return the conflicting {@link IndexEntry} instances, in path order, so that the entries for each path are adjacent
 	 */
-	void revert(AnyObjectId toRevert);
+	List<IndexEntry> previewMergeConflicts(Ref toMerge);
 
 	/**
-	 * Returns merge conflicts that exist in the local working directory.
+	 * Reverts the given commits from the current working branch, in order, as a single new commit.
+	 * The reverts are applied in memory; commits whose revert does not apply cleanly are skipped, and the working directory is only
+	 * updated once, after all the reverts have been applied.
 	 *
-	 * @return a map of conflicting file names to their {@link IndexDiff.StageState StageState}.
+	 * @param toRevert the commits to revert, most recent first
+	 * @return the commits that were reverted; empty if none applied cleanly, in which case no commit is made
 	 */
-	Map<String, IndexDiff.StageState> getConflicts();
+	List<RevCommit> revertAll(List<RevCommit> toRevert);
 
 	/**
-	 * Returns the set of {@link IndexEntry} instances representing every index entry in the git database.
+	 * Returns the index entries for the merge conflicts that exist in the local working directory; that is, every base, ours and theirs
+	 * stage entry in the index. The index is read once, and the working directory is not scanned.
 	 *
-	 * @return the set of {@link IndexEntry} instances representing every index entry in the git database
+	 * @return the conflicting {@link IndexEntry} instances, in index order, so that the entries for each path are adjacent
 	 */
-	Set<IndexEntry> getStatusIndexEntries();
+	List<IndexEntry> getConflictingIndexEntries();
 
 	/**
-	 * Returns an iterable commits in the local working branch.
+	 * Records the given conflicts of the merge in progress as pending, replacing any previously pending conflicts, so that their
+	 * resolutions can be learned by {@link #learnCommittedResolutions()} once the merge has been committed. Does nothing if no merge is in
+	 * progress.
 	 *
-	 * @return an iterable of commits
+	 * @param conflicts the merge conflicts
 	 */
-	Iterable<RevCommit> getAllCommits();
+	void recordPendingConflicts(List<Change> conflicts);
 
 	/**
-	 * Returns an iterable of commits for the specified branch.
+	 * Learns the resolution of each pending conflict, if the merge in which it occurred has since been committed to the local working
+	 * branch. The resolution is the contents of the conflicting path in the merge commit.
 	 *
-	 * @param branch the branch ref
-	 * @return an iterable of commits
+	 * @param record whether to record the resolutions for later runs and discard the pending conflicts; otherwise the resolutions are only
+	 *               remembered by this client, and nothing is written
+	 * @return the number of resolutions learned
 	 */
-	Iterable<RevCommit> getAllCommitsForBranch(Ref branch);
+	int learnCommittedResolutions(boolean record);
 
 	/**
-	 * Returns an iterable of commits containing the specified path in any branch with a name starting with upstreamRemoteName.
+	 * Returns the recorded resolution of a conflict with the same base, ours and theirs contents as the given conflict.
 	 *
-	 * @param path               a path that the commit must contain
-	 * @param upstreamRemoteName the branch name prefix
-	 * @return an iterable of commits
+	 * @param conflict the merge conflict
+	 * @return the recorded resolution, or empty if the same conflict has not been resolved before
 	 */
-	Iterable<RevCommit> getAllCommitsForPathInAllBranches(String path, String upstreamRemoteName);
+	Optional<RecordedResolution> getRecordedResolution(Change conflict);
+
+	/**
+	 * Returns the commits in the local working branch made since its latest boundary commit, newest first. The history is followed through
+	 * every parent of merge commits, so commits brought in by a merge are included; the walk does not continue past boundary commits.
+	 *
+	 * @param isBoundary determines whether a commit is a boundary commit
+	 * @return the commits
+	 */
+	List<RevCommit> getCommitsSinceBoundary(Predicate<RevCommit> isBoundary);
+
+	/**
+	 * Returns the commits in the specified branch made since its latest boundary commit, newest first, as by
+	 * {@link #getCommitsSinceBoundary(Predicate)}.
+	 *
+	 * @param branch     the branch ref
+	 * @param isBoundary determines whether a commit is a boundary commit
+	 * @return the commits
+	 */
+	List<RevCommit> getCommitsForBranchSinceBoundary(Ref branch, Predicate<RevCommit> isBoundary);
+
+	/**
+	 * Returns an index of every blob that has existed at each path in any branch of the upstream remote.
+	 * The index is kept on disk between runs, and updated with any new upstream commits after a {@link #fetch(String) fetch}.
+	 *
+	 * @param upstreamRemoteName the name of the upstream remote
+	 * @return the upstream blob index
+	 */
+	UpstreamBlobIndex getUpstreamBlobIndex(String upstreamRemoteName);
 
 	/**
 	 * Returns the latest commit in the current branch that contains the specified path.
@@ -119,6 +157,15 @@ public interface GitClient {
 	 */
 	RevCommit getLatestCommitForPath(String path);
 
+	/**
+	 * Returns the id of the object at each of the specified paths in the HEAD commit: the blob id for a file, or the tree id for a
+	 * directory. Only the trees leading to the specified paths are read.
+	 *
+	 * @param paths the paths of files or directories, relative to the git root
+	 * @return a map of each path to its object id; paths that don't exist at HEAD are absent from the map
+	 */
+	Map<String, String> getObjectIdsAtHead(Collection<String> paths);
+
 	/**
 	 * Returns the results of a diff of all unstaged changes in the working directory.
 	 *
@@ -127,7 +174,19 @@ public interface GitClient {
 	List<DiffEntry> getDiff();
 
 	/**
-	 * Returns the results of a diff between the local working directory and the given {@link Ref}.
+	 * Returns the paths that the given upstream branch has changed since the last of its commits merged into the local working branch;
+	 * that is, the paths that differ between the merge-base of the local working branch and the given branch, and the given branch. If the
+	 * branch has already been merged by a merge commit, the merge-base is taken from the local side of that merge.
+	 *
+	 * @param upstreamBranch the upstream branch ref
+	 * @return the changed paths, or empty if the local working branch has no merge-base with the branch, or contains all of it other than
+	 * through a merge commit
+	 */
+	Optional<Set<String>> getUpstreamChangedPaths(Ref upstreamBranch);
+
+	/**
+	 * Returns the results of a diff between the git index and the given {@link Ref}.
+	 * Only the changed entries are determined; no file contents are read, and the working directory is not scanned.
 	 *
 	 * @param otherBranch the branch to diff
 	 * @return a list of {@link DiffEntry} instances
@@ -146,6 +205,13 @@ public interface GitClient {
 	 */
 	void stageAll();
 
+	/**
+	 * Adds the specified files to the git index, updating the index once for all of them.
+	 *
+	 * @param paths the paths of the files to add to the git index
+	 */
+	void stageAll(Collection<String> paths);
+
 	/**
 	 * Removes a file from the git index.
 	 *
@@ -161,11 +227,11 @@ public interface GitClient {
 	void commit(String message);
 
 	/**
-	 * Deletes a file from the local file system and git repository.
+	 * Deletes the specified files from the local file system and git repository, updating the index once for all of them.
 	 *
-	 * @param path the path of the file to delete
+	 * @param paths the paths of the files to delete
 	 */
-	void delete(String path);
+	void deleteAll(Collection<String> paths);
 
 	/**
 	 * Writes the contents of the object at the given SHA to the given output stream.
@@ -175,6 +241,44 @@ public interface GitClient {
 	 */
 	void writeBlobContents(String hexSha, OutputStream outputStream);
 
+	/**
+	 * Runs the given task on the current thread, reading all the blob contents it writes with
+	 * {@link #writeBlobContents(String, OutputStream)} through one object reader, so that a delta base inflated for one blob is reused by
+	 * the next blob built on it. Nested calls on the same thread share the outermost reader.
+	 *
+	 * @param task the task that writes the blobs
+	 */
+	void withBlobReadScope(Runnable task);
+
+	/**
+	 * Groups the given SHAs by the pack file holding their objects, each group sorted by the offset of its objects within the pack. As a
+	 * pack stores the base of a delta before the delta itself, reading the blobs of a group in order reads the pack sequentially and
+	 * inflates each delta base before the blobs that depend on it. The groups of packed objects are followed by one group, possibly
+	 * empty, holding the objects outside any pack in their given order.
+	 *
+	 * @param hexShas the SHAs referencing objects in the git database
+	 * @return the groups of distinct packed SHAs, followed by the group of other distinct SHAs
+	 */
+	List<List<String>> groupByPack(Collection<String> hexShas);
+
+	/**
+	 * Determines whether the file at the given path in the working directory already contains the contents of the object at the given SHA.
+	 * Files whose size differs from the object are rejected without being read.
+	 *
+	 * @param path   the path of the file, relative to the git root
+	 * @param hexSha the SHA referencing an object in the git database
+	 * @return true if the file exists and its contents hash to the given SHA
+	 */
+	boolean workingFileMatchesBlob(String path, String hexSha);
+
+	/**
+	 * Returns the size of each of the objects at the given SHAs. Only object headers are read, not the object contents.
+	 *
+	 * @param hexShas the SHAs referencing objects in the git database
+	 * @return a map of each SHA to the size of its object in bytes; SHAs that can't be found are absent from the map
+	 */
+	Map<String, Long> getBlobSizes(Collection<String> hexShas);
+
 	/**
 	 * Returns a SHA-256 hash of the contents of the path at the specified commit.
 	 *
@@ -185,11 +289,12 @@ public interface GitClient {
 	Optional<String> getContentHashOfPathAtCommit(String path, RevCommit commit);
 
 	/**
-	 * Returns a SHA-256 hash of the contents of the specified commit.
-	 * The hash is computed based on the contents of all files in the commit.
+	 * Returns a SHA-256 hash of the contents of each of the specified commits.
+	 * The hash is computed from the change type, paths, and blob ids of each file changed by the commit, so no file contents are read.
+	 * Hashes are cached by commit id between runs, and the remainder are computed in parallel.
 	 *
-	 * @param commit the commit to hash
-	 * @return a hash of the commit contents
+	 * @param commits the commits to hash
+	 * @return a map of each commit to a hash of its contents
 	 */
-	String getContentHash(RevCommit commit);
+	Map<RevCommit, String> getContentHashes(Collection<RevCommit> commits);
 }
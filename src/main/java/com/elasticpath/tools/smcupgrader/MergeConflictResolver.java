@@ -2,11 +2,19 @@ package com.elasticpath.tools.smcupgrader;
 
 import static com.elasticpath.tools.smcupgrader.UpgradeController.LOGGER;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
-import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Ref;
 
 /**
  * Resolves merge conflicts.
@@ -20,6 +28,8 @@ public class MergeConflictResolver extends AbstractConflictResolver {
 
 	private final SafeOverwriteDeterminer safeOverwriteDeterminer;
 
+	private final ResolutionCostEstimator resolutionCostEstimator;
+
 	/**
 	 * Constructor.
 	 *
@@ -28,9 +38,10 @@ public class MergeConflictResolver extends AbstractConflictResolver {
 	public MergeConflictResolver(final GitClient gitClient) {
 		super(gitClient);
 		changeFactory = new ChangeFactory();
-		changeContentsEquivalence = new ChangeContentsEquivalence(gitClient);
+		changeContentsEquivalence = new ChangeContentsEquivalence();
 		conflictResolutionDeterminer = new ConflictResolutionDeterminer();
 		safeOverwriteDeterminer = new SafeOverwriteDeterminer(gitClient);
+		resolutionCostEstimator = new ResolutionCostEstimator(gitClient);
 	}
 
 	/**
@@ -39,39 +50,162 @@ public class MergeConflictResolver extends AbstractConflictResolver {
 	 * @param upstreamRemoteName the name of the upstream remote
 	 */
 	public void resolveMergeConflicts(final String upstreamRemoteName) {
-		final Map<String, IndexDiff.StageState> conflicts = getGitClient().getConflicts();
-		final Set<IndexEntry> statusIndexEntries = getGitClient().getStatusIndexEntries();
+		// Start reading the blobs to write as soon as each resolution is decided
+		final List<Resolution> resolutions = decideMergeConflicts(upstreamRemoteName, true, this::prefetchTargetBlob);
+
+		// Apply every decided resolution: file writes in parallel, and a single update of the index
+		applyResolutions(resolutions, resolution -> planResolution(resolution).getTargetSHA(), this::resolveConflict);
+
+		final long resolvedConflictCount = resolutions.stream()
+				.filter(resolution -> resolution.getStrategy() == ConflictResolutionStrategy.ACCEPT_THEIRS)
+				.count();
+		if (resolvedConflictCount > 0) {
+			LOGGER.info("Resolved " + resolvedConflictCount + " conflict(s) by accepting the upstream change.");
+		}
+
+		final long reusedConflictCount = resolutions.stream()
+				.filter(resolution -> resolution.getStrategy() == ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION)
+				.count();
+		if (reusedConflictCount > 0) {
+			LOGGER.info("Resolved " + reusedConflictCount + " conflict(s) by reusing their recorded resolution.");
+		}
+	}
+
+	/**
+	 * Plans the resolution of merge conflicts, without modifying the working directory or the index. Resolutions learned from a committed
+	 * merge are reused, but neither they nor the conflicts left for manual resolution are recorded.
+	 *
+	 * @param upstreamRemoteName the name of the upstream remote
+	 * @return the planned resolution of each merge conflict
+	 */
+	public List<PlannedResolution> planMergeConflicts(final String upstreamRemoteName) {
+		return decideMergeConflicts(upstreamRemoteName, false, resolution -> { }).stream()
+				.map(this::planResolution)
+				.sorted(Comparator.comparing(PlannedResolution::getPath))
+				.collect(Collectors.toList());
+	}
 
-		LOGGER.info(conflicts.size() + " conflict(s) found.");
+	/**
+	 * Previews the merge of the release branch for the given version, without modifying the working directory or the index. The merge
+	 * is performed in memory, and each conflict it would produce is decided as it would be after a real merge. The number of conflicts
+	 * decided with each strategy is logged, followed by the paths that would need manual resolution, most expensive first.
+	 *
+	 * @param upstreamRemoteName the name of the upstream remote
+	 * @param version            the version being upgraded to
+	 * @return the resolution that would be decided for each conflict
+	 */
+	public List<Resolution> previewMergeConflicts(final String upstreamRemoteName, final String version) {
+		final Ref releaseBranch = getGitClient().getReleaseBranch(upstreamRemoteName, version);
+		final List<Change> mergeConflictChanges = changeFactory.createMergeConflictChanges(
+				getGitClient().previewMergeConflicts(releaseBranch));
 
-		if (!conflicts.isEmpty()) {
+		LOGGER.info(mergeConflictChanges.size() + " conflict(s) would occur when merging " + releaseBranch.getName() + ".");
+
+		final List<Resolution> resolutions = decideMergeConflicts(mergeConflictChanges, upstreamRemoteName, resolution -> { });
+
+		final Map<ConflictResolutionStrategy, Long> strategyCounts = resolutions.stream()
+				.collect(Collectors.groupingBy(Resolution::getStrategy, () -> new EnumMap<>(ConflictResolutionStrategy.class),
+						Collectors.counting()));
+		for (final ConflictResolutionStrategy strategy : ConflictResolutionStrategy.values()) {
+			LOGGER.info("  " + strategy + ": " + strategyCounts.getOrDefault(strategy, 0L));
+		}
+
+		final List<Change> manualChanges = resolutions.stream()
+				.filter(resolution -> resolution.getStrategy() == ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED)
+				.map(Resolution::getChange)
+				.collect(Collectors.toList());
+		if (!manualChanges.isEmpty()) {
+			final ToLongFunction<Change> costs = resolutionCostEstimator.estimateCosts(manualChanges);
+			manualChanges.sort(Comparator.comparingLong(costs).reversed());
+			LOGGER.info("Files that would need manual resolution, most expensive first:\n\n"
+					+ manualChanges.stream().map(Change::getPath).collect(Collectors.joining("\n")));
+		}
+
+		return resolutions;
+	}
+
+	/**
+	 * Decides how each conflict described by the given index entries would be resolved, without recording the conflicts.
+	 *
+	 * @param conflictingIndexEntries the conflicting index entries of a merge previewed with {@link GitClient#previewMergeConflicts(Ref)}
+	 * @param upstreamRemoteName      the name of the upstream remote
+	 * @return the resolution that would be decided for each conflict
+	 */
+	List<Resolution> decidePreviewedMergeConflicts(final List<IndexEntry> conflictingIndexEntries, final String upstreamRemoteName) {
+		return decideMergeConflicts(changeFactory.createMergeConflictChanges(conflictingIndexEntries), upstreamRemoteName, resolution -> { });
+	}
+
+	private List<Resolution> decideMergeConflicts(final String upstreamRemoteName, final boolean record,
+			final Consumer<Resolution> decisionListener) {
+		final int learnedResolutionCount = getGitClient().learnCommittedResolutions(record);
+		if (learnedResolutionCount > 0) {
+			LOGGER.info("Learned the resolution of " + learnedResolutionCount + " conflict(s) from the last committed merge.");
+		}
+
+		final List<Change> mergeConflictChanges = changeFactory.createMergeConflictChanges(getGitClient().getConflictingIndexEntries());
+
+		LOGGER.info(mergeConflictChanges.size() + " conflict(s) found.");
+
+		final List<Resolution> resolutions = decideMergeConflicts(mergeConflictChanges, upstreamRemoteName, decisionListener);
+		if (!record) {
+			return resolutions;
+		}
+
+		// Record the conflicts left for manual resolution, so that their resolutions are learned once the merge is committed
+		getGitClient().recordPendingConflicts(resolutions.stream()
+				.filter(resolution -> resolution.getStrategy() == ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED)
+				.map(Resolution::getChange)
+				.collect(Collectors.toList()));
+
+		return resolutions;
+	}
+
+	private List<Resolution> decideMergeConflicts(final List<Change> mergeConflictChanges, final String upstreamRemoteName,
+			final Consumer<Resolution> decisionListener) {
+		if (!mergeConflictChanges.isEmpty()) {
 			LOGGER.info("Processing merge conflicts to attempt automatic resolution...");
 		}
 
-		final List<Change> mergeConflictChanges = changeFactory.createChanges(conflicts, statusIndexEntries);
+		safeOverwriteDeterminer.prefetch(mergeConflictChanges.stream()
+				.map(Change::getPath)
+				.collect(Collectors.toList()), upstreamRemoteName);
+
+		// Decide every resolution in parallel, most expensive first
+		final Queue<Resolution> resolutions = new ConcurrentLinkedQueue<>();
+		ProcessCollectionInParallelWithProgress.process(mergeConflictChanges, change -> {
+			// A conflict that has been resolved before is resolved the same way again
+			final Optional<RecordedResolution> recordedResolution = getGitClient().getRecordedResolution(change);
+			if (recordedResolution.isPresent()) {
+				final Resolution resolution = new Resolution(change, recordedResolution.get());
+				resolutions.add(resolution);
+				decisionListener.accept(resolution);
+				return true;
+			}
 
-		long resolvedDiffCount = ProcessCollectionInParallelWithProgress.process(mergeConflictChanges, change -> {
 			ConflictResolutionStrategy strategy = conflictResolutionDeterminer.determineResolution(change,
 					() -> safeOverwriteDeterminer.pathIsSafeToOverwrite(change.getPath(), upstreamRemoteName),
 					() -> changeContentsEquivalence.oursTheirsChangeContentsAreEqual(change));
-			synchronized (this) {
-				resolveConflict(change, strategy);
-			}
+			final Resolution resolution = new Resolution(change, strategy);
+			resolutions.add(resolution);
+			decisionListener.accept(resolution);
 			return strategy == ConflictResolutionStrategy.ACCEPT_THEIRS;
-		});
+		}, resolutionCostEstimator.estimateCosts(mergeConflictChanges), getExecutor());
 
-		if (resolvedDiffCount > 0) {
-			LOGGER.info("Resolved " + resolvedDiffCount + " conflict(s) by accepting the upstream change.");
-		}
+		return new ArrayList<>(resolutions);
 	}
 
-	private void resolveConflict(final Change change, final ConflictResolutionStrategy conflictResolutionStrategy) {
+	private void resolveConflict(final Resolution resolution) {
+		final Change change = resolution.getChange();
+		final ConflictResolutionStrategy conflictResolutionStrategy = resolution.getStrategy();
 		if (conflictResolutionStrategy == ConflictResolutionStrategy.ACCEPT_OURS) {
 			LOGGER.debug("Resolving conflict on " + change.getPath() + " by rejecting the incoming change.");
 			resolveConflictOurs(change);
 		} else if (conflictResolutionStrategy == ConflictResolutionStrategy.ACCEPT_THEIRS) {
 			LOGGER.debug("Resolving conflict on " + change.getPath() + " by accepting the incoming change.");
 			resolveConflictTheirs(change);
+		} else if (conflictResolutionStrategy == ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION) {
+			LOGGER.debug("Resolving conflict on " + change.getPath() + " by reusing its recorded resolution.");
+			applyPlannedResolution(planResolution(resolution));
 		} else {
 			LOGGER.debug("Manual resolution required for file " + change.getPath());
 		}
@@ -2,10 +2,9 @@ package com.elasticpath.tools.smcupgrader;
 
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -47,38 +46,50 @@ public class PatchReverter {
 	public void revertPatches(final String upstreamRemoteName, final String version) {
 		LOGGER.info("Reverting patches...");
 
-		final List<RevCommit> localCommits = StreamSupport.stream(gitClient.getAllCommits().spliterator(), false)
+		final Ref releaseBranch = gitClient.getReleaseBranch(upstreamRemoteName, version);
+		final Predicate<RevCommit> isUpgradeCommit = commit -> UPGRADE_COMMIT_PATTERN.matcher(commit.getShortMessage()).find();
+
+		// Local commits are those made since the latest upgrade, including patch commits merged in from the release branch
+		final List<RevCommit> localCommits = gitClient.getCommitsSinceBoundary(isUpgradeCommit).stream()
 				// Skip merge commits
 				.filter(commit -> commit.getParentCount() == 1)
 				.collect(Collectors.toList());
 
-		final Ref releaseBranch = gitClient.getReleaseBranch(upstreamRemoteName, version);
-		final Map<String, String> patchCommitContentHashes =
-				StreamSupport.stream(gitClient.getAllCommitsForBranch(releaseBranch).spliterator(), false)
-				// Skip upgrade commits
-				.filter(commit -> {
-					Matcher matcher = UPGRADE_COMMIT_PATTERN.matcher(commit.getShortMessage());
-					return !matcher.find();
+		// Patches for the current version are the commits made on the release branch since its latest upgrade commit
+		final List<RevCommit> patchCommits = gitClient.getCommitsForBranchSinceBoundary(releaseBranch, isUpgradeCommit);
+
+		LOGGER.debug("Comparing {} local commit(s) against {} patch commit(s)", localCommits.size(), patchCommits.size());
+
+		// Fingerprint every commit up front, in parallel, so that only the reverts themselves run in order
+		final Map<RevCommit, String> patchCommitsToContentHashes = gitClient.getContentHashes(patchCommits);
+		final Map<String, String> patchCommitContentHashes = patchCommits.stream()
+				.collect(Collectors.toMap(patchCommitsToContentHashes::get, RevCommit::getShortMessage));
+		final Map<RevCommit, String> localCommitContentHashes = gitClient.getContentHashes(localCommits);
+
+		final List<RevCommit> matchingCommits = localCommits.stream()
+				.filter(localCommit -> {
+					final String localCommitContentHash = localCommitContentHashes.get(localCommit);
+					if (patchCommitContentHashes.containsKey(localCommitContentHash)) {
+						LOGGER.info("Reverting commit '{}' (matches with remote commit '{}')", localCommit.getShortMessage(),
+								patchCommitContentHashes.get(localCommitContentHash));
+						return true;
+					}
+					return false;
 				})
-				.collect(Collectors.toMap(gitClient::getContentHash, RevCommit::getShortMessage));
-
-		long revertedCommitCount = ProcessCollectionInSerialWithProgress.process(localCommits, localCommit -> {
-			final String localCommitContentHash = gitClient.getContentHash(localCommit);
-			if (patchCommitContentHashes.containsKey(localCommitContentHash)) {
-				LOGGER.info("Reverting commit '{}' (matches with remote commit '{}')", localCommit.getShortMessage(),
-						patchCommitContentHashes.get(localCommitContentHash));
-				try {
-					gitClient.revert(localCommit);
-					return true;
-				} catch (RuntimeException ex) {
-					LOGGER.warn("Failed to revert commit '{}': {}", localCommit.getShortMessage(), ex.getMessage());
-				}
-			}
-			return false;
-		});
-
-		if (revertedCommitCount > 0) {
-			LOGGER.info("Reverted {} patches.", revertedCommitCount);
+				.collect(Collectors.toList());
+
+		if (matchingCommits.isEmpty()) {
+			return;
+		}
+
+		final List<RevCommit> revertedCommits = gitClient.revertAll(matchingCommits);
+		matchingCommits.stream()
+				.filter(matchingCommit -> !revertedCommits.contains(matchingCommit))
+				.forEach(matchingCommit -> LOGGER.warn("Failed to revert commit '{}': the revert does not apply cleanly",
+						matchingCommit.getShortMessage()));
+
+		if (!revertedCommits.isEmpty()) {
+			LOGGER.info("Reverted {} patches.", revertedCommits.size());
 		}
 	}
 }
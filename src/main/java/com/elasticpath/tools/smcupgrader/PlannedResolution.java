@@ -0,0 +1,96 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.util.Objects;
+
+/**
+ * Represents a decided resolution reduced to the file operation that applies it: the contents and permissions to write to a path, or the
+ * deletion of that path. Unlike a {@link Resolution}, it can be replayed without the {@link Change} from which it was decided.
+ */
+public class PlannedResolution {
+	private final String path;
+
+	private final ConflictResolutionStrategy strategy;
+
+	private final String targetSHA;
+
+	private final FilePermissions targetFilePermissions;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param path                  the path of the file being resolved, relative to the git root
+	 * @param strategy              the strategy with which the change was decided to be resolved
+	 * @param targetSHA             the SHA of the Git BLOB to write to the file. Use {@code null} if the file is to be deleted by an
+	 *                              {@link ConflictResolutionStrategy#ACCEPT_THEIRS} or
+	 *                              {@link ConflictResolutionStrategy#REUSE_RECORDED_RESOLUTION} strategy, or left untouched by any other
+	 *                              strategy.
+	 * @param targetFilePermissions the file permissions to set after writing the file. Use {@code null} to leave them unchanged.
+	 */
+	public PlannedResolution(final String path, final ConflictResolutionStrategy strategy, final String targetSHA,
+			final FilePermissions targetFilePermissions) {
+		this.path = path;
+		this.strategy = strategy;
+		this.targetSHA = targetSHA;
+		this.targetFilePermissions = targetFilePermissions;
+	}
+
+	/**
+	 * Indicates whether applying this resolution writes the file.
+	 *
+	 * @return true if the file is written with the target contents
+	 */
+	public boolean isWrite() {
+		return targetSHA != null;
+	}
+
+	/**
+	 * Indicates whether applying this resolution deletes the file.
+	 *
+	 * @return true if the file is deleted
+	 */
+	public boolean isDeletion() {
+		return targetSHA == null && (strategy == ConflictResolutionStrategy.ACCEPT_THEIRS
+				|| strategy == ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public ConflictResolutionStrategy getStrategy() {
+		return strategy;
+	}
+
+	public String getTargetSHA() {
+		return targetSHA;
+	}
+
+	public FilePermissions getTargetFilePermissions() {
+		return targetFilePermissions;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (other == null || getClass() != other.getClass()) {
+			return false;
+		}
+		final PlannedResolution that = (PlannedResolution) other;
+		return Objects.equals(path, that.path)
+				&& strategy == that.strategy
+				&& Objects.equals(targetSHA, that.targetSHA)
+				&& Objects.equals(targetFilePermissions, that.targetFilePermissions);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(path, strategy, targetSHA, targetFilePermissions);
+	}
+
+	@Override
+	public String toString() {
+		return strategy + ": " + path + " -> " + targetSHA;
+	}
+}
@@ -1,9 +1,17 @@
 package com.elasticpath.tools.smcupgrader;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 public final class ProcessCollectionInParallelWithProgress {
 	private static final double ONE_HUNDRED_PERCENT = 100.0;
@@ -25,26 +33,70 @@ public final class ProcessCollectionInParallelWithProgress {
 	 * @param <T> the value type
 	 */
 	public static <T> long process(final Collection<T> input, final Function<T, Boolean> function) {
+		return process(input, function, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Process the input collection using the passed function in parallel on the given executor, outputting progress in 5% increments to
+	 * standard out. Values are submitted in order of decreasing estimated cost, and each worker takes the next value as soon as it is
+	 * free, so that the most expensive values are started first rather than being left for the last worker to finish.
+	 *
+	 * @param input the collection to process
+	 * @param function the function to evaluate on each record of the collection, returning true if the function evaluation "completed"
+	 * @param costEstimate estimates the relative cost of evaluating the function on a value; evaluated during sorting, so must be cheap
+	 * @param executor the executor on which to evaluate the function
+	 * @return the number of values that were "completed"
+	 * @param <T> the value type
+	 */
+	public static <T> long process(final Collection<T> input, final Function<T, Boolean> function, final ToLongFunction<T> costEstimate,
+			final Executor executor) {
+		final List<T> mostExpensiveFirst = new ArrayList<>(input);
+		mostExpensiveFirst.sort(Comparator.comparingLong(costEstimate).reversed());
+		return process(mostExpensiveFirst, function, executor);
+	}
+
+	/**
+	 * Process the input collection using the passed function in parallel on the given executor, outputting progress in 5% increments to
+	 * standard out.
+	 *
+	 * @param input the collection to process
+	 * @param function the function to evaluate on each record of the collection, returning true if the function evaluation "completed"
+	 * @param executor the executor on which to evaluate the function
+	 * @return the number of values that were "completed"
+	 * @param <T> the value type
+	 */
+	public static <T> long process(final Collection<T> input, final Function<T, Boolean> function, final Executor executor) {
 		int total = input.size();
 		AtomicInteger processedCount = new AtomicInteger();
 		AtomicInteger lastPrintedProgress = new AtomicInteger(0);
 		AtomicLong resolvedCount = new AtomicLong();
 
-		input.parallelStream().forEach(value -> {
-			if (Boolean.TRUE.equals(function.apply(value))) {
-				resolvedCount.incrementAndGet();
-			}
+		final CompletableFuture<?>[] tasks = input.stream()
+				.map(value -> CompletableFuture.runAsync(() -> {
+					if (Boolean.TRUE.equals(function.apply(value))) {
+						resolvedCount.incrementAndGet();
+					}
+
+					int current = processedCount.incrementAndGet();
+					int progress = (int) ((current * ONE_HUNDRED_PERCENT) / total);
 
-			int current = processedCount.incrementAndGet();
-			int progress = (int) ((current * ONE_HUNDRED_PERCENT) / total);
+					// Print progress at each 5% milestone (but only once)
+					int last = lastPrintedProgress.get();
+					if (progress >= last + PROGRESS_INCREMENT
+							&& lastPrintedProgress.compareAndSet(last, progress - (progress % PROGRESS_INCREMENT))) {
+						System.out.println("Progress: " + (progress - (progress % PROGRESS_INCREMENT)) + "%");
+					}
+				}, executor))
+				.toArray(CompletableFuture<?>[]::new);
 
-			// Print progress at each 5% milestone (but only once)
-			int last = lastPrintedProgress.get();
-			if (progress >= last + PROGRESS_INCREMENT
-					&& lastPrintedProgress.compareAndSet(last, progress - (progress % PROGRESS_INCREMENT))) {
-				System.out.println("Progress: " + (progress - (progress % PROGRESS_INCREMENT)) + "%");
+		try {
+			CompletableFuture.allOf(tasks).join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
 			}
-		});
+			throw e;
+		}
 
 		return resolvedCount.get();
 	}
@@ -0,0 +1,55 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.util.Objects;
+
+/**
+ * Represents how a merge conflict was resolved when it was last committed: the committed contents and permissions of the file, or its
+ * deletion.
+ */
+public class RecordedResolution {
+	private final String resolvedSHA;
+
+	private final FilePermissions resolvedFilePermissions;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resolvedSHA             the SHA of the Git BLOB containing the committed contents of the file. Use {@code null} if the file
+	 *                                was deleted.
+	 * @param resolvedFilePermissions the committed file permissions. Use {@code null} if the file was deleted.
+	 */
+	public RecordedResolution(final String resolvedSHA, final FilePermissions resolvedFilePermissions) {
+		this.resolvedSHA = resolvedSHA;
+		this.resolvedFilePermissions = resolvedFilePermissions;
+	}
+
+	public String getResolvedSHA() {
+		return resolvedSHA;
+	}
+
+	public FilePermissions getResolvedFilePermissions() {
+		return resolvedFilePermissions;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (other == null || getClass() != other.getClass()) {
+			return false;
+		}
+		final RecordedResolution that = (RecordedResolution) other;
+		return Objects.equals(resolvedSHA, that.resolvedSHA) && Objects.equals(resolvedFilePermissions, that.resolvedFilePermissions);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(resolvedSHA, resolvedFilePermissions);
+	}
+
+	@Override
+	public String toString() {
+		return resolvedSHA == null ? "deleted" : resolvedSHA;
+	}
+}
@@ -0,0 +1,75 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.util.Objects;
+
+/**
+ * Represents the decided resolution of a single {@link Change}: the change, and the strategy with which to resolve it.
+ */
+public class Resolution {
+	private final Change change;
+
+	private final ConflictResolutionStrategy strategy;
+
+	private final RecordedResolution recordedResolution;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param change   the change being resolved
+	 * @param strategy the strategy with which to resolve the change
+	 */
+	public Resolution(final Change change, final ConflictResolutionStrategy strategy) {
+		this(change, strategy, null);
+	}
+
+	/**
+	 * Constructor for a {@link ConflictResolutionStrategy#REUSE_RECORDED_RESOLUTION} resolution.
+	 *
+	 * @param change             the change being resolved
+	 * @param recordedResolution the recorded resolution of the same conflict to reuse
+	 */
+	public Resolution(final Change change, final RecordedResolution recordedResolution) {
+		this(change, ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION, recordedResolution);
+	}
+
+	private Resolution(final Change change, final ConflictResolutionStrategy strategy, final RecordedResolution recordedResolution) {
+		this.change = change;
+		this.strategy = strategy;
+		this.recordedResolution = recordedResolution;
+	}
+
+	public Change getChange() {
+		return change;
+	}
+
+	public ConflictResolutionStrategy getStrategy() {
+		return strategy;
+	}
+
+	public RecordedResolution getRecordedResolution() {
+		return recordedResolution;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (other == null || getClass() != other.getClass()) {
+			return false;
+		}
+		final Resolution that = (Resolution) other;
+		return Objects.equals(change, that.change) && strategy == that.strategy
+				&& Objects.equals(recordedResolution, that.recordedResolution);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(change, strategy, recordedResolution);
+	}
+
+	@Override
+	public String toString() {
+		return strategy + ": " + change;
+	}
+}
@@ -0,0 +1,56 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Estimates the relative cost of resolving each of a set of changes, so that the most expensive changes can be started first when they
+ * are processed in parallel.
+ *
+ * <p>The cost of a change grows with the size of its file contents, which are read to compare and written to resolve the change. Checking
+ * whether a file is safe to overwrite is a constant-time lookup in the upstream blob index, whatever the number of upstream revisions of
+ * the file, so it does not add to the estimate. Only object headers are read, so the estimate is cheap compared with the resolution
+ * itself.</p>
+ */
+public class ResolutionCostEstimator {
+	private final GitClient gitClient;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param gitClient the git client
+	 */
+	public ResolutionCostEstimator(final GitClient gitClient) {
+		this.gitClient = gitClient;
+	}
+
+	/**
+	 * Estimates the cost of resolving each of the given changes. The sizes of all their file contents are read in a single batch.
+	 *
+	 * @param changes the changes to be resolved
+	 * @return a function returning the estimated cost of each of the given changes
+	 */
+	public ToLongFunction<Change> estimateCosts(final Collection<Change> changes) {
+		if (changes.isEmpty()) {
+			return change -> 0;
+		}
+
+		final List<String> blobShas = new ArrayList<>(2 * changes.size());
+		for (final Change change : changes) {
+			blobShas.add(change.getOurVersionSHA());
+			blobShas.add(change.getTheirVersionSHA());
+		}
+		final Map<String, Long> blobSizes = gitClient.getBlobSizes(blobShas);
+
+		final Map<Change, Long> costs = new HashMap<>();
+		for (final Change change : changes) {
+			costs.put(change, blobSizes.getOrDefault(change.getOurVersionSHA(), 0L)
+					+ blobSizes.getOrDefault(change.getTheirVersionSHA(), 0L));
+		}
+		return change -> costs.getOrDefault(change, 0L);
+	}
+}
@@ -0,0 +1,149 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * A set of {@link PlannedResolution}s, at most one per path, that can be stored in a file and replayed later without repeating the
+ * analysis that decided them.
+ *
+ * <p>The file is UTF-8 text. After a header line identifying the format, each line holds one resolution as tab-separated fields: the
+ * strategy, the target blob SHA, the target file permissions as {@code r}, {@code w} and {@code x} flags, and the path. A {@code -}
+ * stands for an absent SHA or permissions. The path is the last field, so that it may itself contain tabs.</p>
+ */
+public class ResolutionPlan {
+	private static final String HEADER = "# smc-upgrader resolution plan v1";
+	private static final String FIELD_SEPARATOR = "\t";
+	private static final String ABSENT = "-";
+	private static final int FIELD_COUNT = 4;
+	private static final int PERMISSIONS_LENGTH = 3;
+
+	private final Map<String, PlannedResolution> resolutionsByPath = new LinkedHashMap<>();
+
+	/**
+	 * Adds a resolution to the plan, unless the plan already holds a resolution for the same path.
+	 *
+	 * @param plannedResolution the resolution to add
+	 * @return true if the resolution was added
+	 */
+	public boolean add(final PlannedResolution plannedResolution) {
+		return resolutionsByPath.putIfAbsent(plannedResolution.getPath(), plannedResolution) == null;
+	}
+
+	/**
+	 * Adds each of the given resolutions to the plan, unless the plan already holds a resolution for the same path.
+	 *
+	 * @param plannedResolutions the resolutions to add
+	 */
+	public void addAll(final Collection<PlannedResolution> plannedResolutions) {
+		plannedResolutions.forEach(this::add);
+	}
+
+	/**
+	 * Returns the resolutions in the plan, in the order they were added.
+	 *
+	 * @return the resolutions
+	 */
+	public List<PlannedResolution> getResolutions() {
+		return new ArrayList<>(resolutionsByPath.values());
+	}
+
+	/**
+	 * Writes the plan to the given file, replacing any existing contents.
+	 *
+	 * @param file the plan file
+	 */
+	public void write(final Path file) {
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (final PlannedResolution plannedResolution : resolutionsByPath.values()) {
+				writer.write(String.join(FIELD_SEPARATOR,
+						plannedResolution.getStrategy().name(),
+						orAbsent(plannedResolution.getTargetSHA()),
+						toString(plannedResolution.getTargetFilePermissions()),
+						plannedResolution.getPath()));
+				writer.newLine();
+			}
+		} catch (final IOException e) {
+			throw new LoggableException("Could not write resolution plan file " + file, e);
+		}
+	}
+
+	/**
+	 * Reads a plan from the given file.
+	 *
+	 * @param file the plan file
+	 * @return the plan
+	 */
+	public static ResolutionPlan read(final Path file) {
+		final ResolutionPlan plan = new ResolutionPlan();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine())) {
+				throw new LoggableException(file + " is not a resolution plan file.");
+			}
+
+			int lineNumber = 1;
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				lineNumber++;
+				if (!line.isEmpty()) {
+					plan.add(parse(line, file, lineNumber));
+				}
+			}
+		} catch (final IOException e) {
+			throw new LoggableException("Could not read resolution plan file " + file, e);
+		}
+		return plan;
+	}
+
+	private static PlannedResolution parse(final String line, final Path file, final int lineNumber) {
+		final String[] fields = line.split(FIELD_SEPARATOR, FIELD_COUNT);
+		try {
+			if (fields.length != FIELD_COUNT || fields[FIELD_COUNT - 1].isEmpty()) {
+				throw new IllegalArgumentException("expected " + FIELD_COUNT + " fields");
+			}
+			final String targetSHA = ABSENT.equals(fields[1]) ? null : fields[1];
+			if (targetSHA != null && !ObjectId.isId(targetSHA)) {
+				throw new IllegalArgumentException("invalid SHA " + targetSHA);
+			}
+			return new PlannedResolution(fields[FIELD_COUNT - 1], ConflictResolutionStrategy.valueOf(fields[0]), targetSHA,
+					toFilePermissions(fields[2]));
+		} catch (final IllegalArgumentException e) {
+			throw new LoggableException("Invalid resolution plan file " + file + " at line " + lineNumber + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static String orAbsent(final String value) {
+		return value == null ? ABSENT : value;
+	}
+
+	private static String toString(final FilePermissions filePermissions) {
+		if (filePermissions == null) {
+			return ABSENT;
+		}
+		return (filePermissions.isReadable() ? "r" : ABSENT)
+				+ (filePermissions.isWritable() ? "w" : ABSENT)
+				+ (filePermissions.isExecutable() ? "x" : ABSENT);
+	}
+
+	private static FilePermissions toFilePermissions(final String value) {
+		if (ABSENT.equals(value)) {
+			return null;
+		}
+		if (value.length() != PERMISSIONS_LENGTH) {
+			throw new IllegalArgumentException("invalid permissions " + value);
+		}
+		return new FilePermissions(value.charAt(0) == 'r', value.charAt(1) == 'w', value.charAt(2) == 'x');
+	}
+}
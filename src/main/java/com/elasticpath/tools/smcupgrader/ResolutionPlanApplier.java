@@ -0,0 +1,59 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static com.elasticpath.tools.smcupgrader.UpgradeController.LOGGER;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Replays a {@link ResolutionPlan}: writes or deletes each planned file, then updates the index once, without repeating the analysis
+ * that decided the plan.
+ */
+public class ResolutionPlanApplier extends AbstractConflictResolver {
+
+	/**
+	 * Constructor.
+	 *
+	 * @param gitClient the git client
+	 */
+	public ResolutionPlanApplier(final GitClient gitClient) {
+		super(gitClient);
+	}
+
+	/**
+	 * Applies the given plan. Every blob the plan writes is checked to exist before any file is modified.
+	 *
+	 * @param plan the plan to apply
+	 */
+	public void apply(final ResolutionPlan plan) {
+		final List<PlannedResolution> plannedResolutions = plan.getResolutions();
+		LOGGER.info(plannedResolutions.size() + " planned resolution(s) found.");
+
+		final List<String> targetSHAs = plannedResolutions.stream()
+				.map(PlannedResolution::getTargetSHA)
+				.filter(Objects::nonNull)
+				.distinct()
+				.collect(Collectors.toList());
+		final Map<String, Long> blobSizes = getGitClient().getBlobSizes(targetSHAs);
+		final long missingBlobCount = targetSHAs.stream()
+				.filter(targetSHA -> !blobSizes.containsKey(targetSHA))
+				.count();
+		if (missingBlobCount > 0) {
+			throw new LoggableException("The resolution plan refers to " + missingBlobCount + " object(s) missing from this repository. "
+					+ "Fetch the upstream remote and merge the release branch the plan was created for before applying it.");
+		}
+
+		applyResolutions(plannedResolutions, PlannedResolution::getTargetSHA, plannedResolution -> {
+			LOGGER.debug("Applying planned " + plannedResolution.getStrategy() + " resolution on " + plannedResolution.getPath() + ".");
+			applyPlannedResolution(plannedResolution);
+		});
+
+		final long appliedCount = plannedResolutions.stream()
+				.filter(plannedResolution -> plannedResolution.isWrite() || plannedResolution.isDeletion())
+				.count();
+		LOGGER.info("Applied " + appliedCount + " planned resolution(s); "
+				+ (plannedResolutions.size() - appliedCount) + " left for manual resolution or unchanged.");
+	}
+}
@@ -41,7 +41,7 @@ public class SMCUpgraderCLI implements Callable<Integer> {
 
 	@CommandLine.Parameters(index = "0", arity = "0..1",
 			description = "The version of Elastic Path Self-Managed Commerce to upgrade to. "
-					+ "Optional when using --ai:start or --ai:continue.")
+					+ "Optional when using --ai:start or --ai:continue. Not used with --forecast.")
 	private String version;
 
 	@CommandLine.Option(names = { "-C" },
@@ -89,6 +89,36 @@ public class SMCUpgraderCLI implements Callable<Integer> {
 			negatable = true, defaultValue = "true")
 	private boolean doDiffResolution;
 
+	@CommandLine.Option(names = { "--diff-upstream-changes-only" },
+			description = "Indicates whether to only reconcile diffs in files that the upstream has changed since it was last merged. "
+					+ "Disable to reconcile every file that differs from the upstream contents. Enabled by default.",
+			negatable = true, defaultValue = "true")
+	private boolean diffUpstreamChangesOnly;
+
+	@CommandLine.Option(names = { "--threads" },
+			description = "The number of worker threads used to resolve conflicts in parallel. Defaults to the 'threads' setting in "
+					+ "~/.smc-upgrader.json, or the number of available processors.")
+	private Integer threads;
+
+	@CommandLine.Option(names = { "--plan-only" }, paramLabel = "<planFile>",
+			description = "Decide the conflict and diff resolutions and write them to the given plan file, without applying them.")
+	private File planOutputFile;
+
+	@CommandLine.Option(names = { "--apply-plan" }, paramLabel = "<planFile>",
+			description = "Apply the resolutions in the given plan file, written by --plan-only, instead of deciding them again.")
+	private File planInputFile;
+
+	@CommandLine.Option(names = { "--preview" },
+			description = "Merge the upstream branch in memory and report how each conflict would be resolved, without modifying the "
+					+ "working directory.")
+	private boolean preview;
+
+	@CommandLine.Option(names = { "--forecast" },
+			description = "Merge the release branch of the current and each later supported version in memory, and "
+					+ "report the number of conflicts and automatically resolvable conflicts of each upgrade hop, "
+					+ "without modifying the working directory.")
+	private boolean forecast;
+
 	@CommandLine.Option(names = { "--ai:start" },
 			description = "Start AI-assisted upgrade mode and generate upgrade plan. Requires version parameter.")
 	private boolean aiStart;
@@ -111,7 +141,7 @@ public class SMCUpgraderCLI implements Callable<Integer> {
 			}
 
 			// Standard upgrade mode - version is required
-			if (!aiContinue && StringUtils.isEmptyOrNull(version)) {
+			if (!aiContinue && !forecast && StringUtils.isEmptyOrNull(version)) {
 				LOGGER.error("Version parameter is required for standard upgrade mode.");
 				LOGGER.error("Usage: smc-upgrader <version>");
 				LOGGER.error("   or: smc-upgrader --ai:start <version>");
@@ -119,14 +149,51 @@ public class SMCUpgraderCLI implements Callable<Integer> {
 				return 1;
 			}
 
+			if (threads != null && threads < 1) {
+				LOGGER.error("The number of threads must be at least 1.");
+				return 1;
+			}
+
+			if (planOutputFile != null && planInputFile != null) {
+				LOGGER.error("--plan-only and --apply-plan cannot be used together.");
+				return 1;
+			}
+
+			if (preview && (planOutputFile != null || planInputFile != null)) {
+				LOGGER.error("--preview cannot be used with --plan-only or --apply-plan.");
+				return 1;
+			}
+
+			if (forecast && !StringUtils.isEmptyOrNull(version)) {
+				LOGGER.error("--forecast compares every supported version and does not take a version parameter.");
+				return 1;
+			}
+
+			if (forecast && (preview || planOutputFile != null || planInputFile != null || aiStart || aiContinue)) {
+				LOGGER.error("--forecast cannot be used with --preview, --plan-only, --apply-plan, --ai:start or --ai:continue.");
+				return 1;
+			}
+
 			final UpgradeController upgradeController = new UpgradeController(workingDir);
 
-			// Handle AI assist modes
-			if (aiStart) {
+			// Handle forecast and AI assist modes
+			if (forecast) {
+				if (threads != null) {
+					upgradeController.setThreads(threads);
+				}
+				upgradeController.forecastUpgrades(AiAssistConfigModel.loadFromResource().getVersions(), doFetch);
+			} else if (aiStart) {
 				return handleAiStart(upgradeController);
 			} else if (aiContinue) {
 				return handleAiContinue();
 			} else {
+				upgradeController.setDiffUpstreamChangesOnly(diffUpstreamChangesOnly);
+				if (threads != null) {
+					upgradeController.setThreads(threads);
+				}
+				upgradeController.setPlanOutputFile(planOutputFile);
+				upgradeController.setPlanInputFile(planInputFile);
+				upgradeController.setPreview(preview);
 				upgradeController.performUpgrade(version, doCleanWorkingDirectoryCheck, doFetch, doRevertPatches, doMerge,
 						doConflictResolution, doDiffResolution);
 			}
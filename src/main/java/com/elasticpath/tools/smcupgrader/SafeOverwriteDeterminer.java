@@ -1,9 +1,15 @@
 package com.elasticpath.tools.smcupgrader;
 
+import static com.elasticpath.tools.smcupgrader.UpgradeController.LOGGER;
+import static com.elasticpath.tools.smcupgrader.impl.RepositoryPaths.getParentDirectories;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import org.eclipse.jgit.revwalk.RevCommit;
 
@@ -11,10 +17,20 @@ import org.eclipse.jgit.revwalk.RevCommit;
  * This class provides the ability to determine if a path is safe to overwrite. That is, that there are no customizations to the latest commit
  * at the specified path by the project team. As long as the contents of the file matches the contents of any commit of that file from
  * the upstream remote, we consider it "not customized".
+ *
+ * <p>When a whole directory matches any commit of that directory from the upstream remote, every file in it is "not customized", so the
+ * files in such directories are found in bulk by {@link #prefetch(Collection, String)}, without checking each file.</p>
+ *
+ * <p>The latest commit at a path holds the same blob as HEAD, so for prefetched paths the blob at HEAD is looked up in the upstream history
+ * directly, without walking the local history to find that commit.</p>
  */
 public class SafeOverwriteDeterminer {
 	private final GitClient gitClient;
 
+	private Map<String, String> blobIdsAtHeadForPaths = Collections.emptyMap();
+
+	private Map<String, String> pristineDirectoriesForPaths = Collections.emptyMap();
+
 	/**
 	 * Constructor.
 	 *
@@ -24,6 +40,40 @@ public class SafeOverwriteDeterminer {
 		this.gitClient = gitClient;
 	}
 
+	/**
+	 * Prepares the evaluation of the given paths. Paths in a directory whose contents match a historical upstream version of that
+	 * directory are safe to overwrite without further checks; the blob at HEAD of each of the other paths is read together with the
+	 * directories, so that subsequent calls to {@link #pathIsSafeToOverwrite(String, String)} for these paths don't need to read the
+	 * history.
+	 *
+	 * @param paths              the paths that will be evaluated
+	 * @param upstreamRemoteName the upstream remote name that contains commits that are considered authoritative
+	 */
+	public void prefetch(final Collection<String> paths, final String upstreamRemoteName) {
+		final Set<String> pathsAndDirectories = new HashSet<>(paths);
+		for (final String path : paths) {
+			pathsAndDirectories.addAll(getParentDirectories(path));
+		}
+		final Map<String, String> objectIdsAtHead = paths.isEmpty()
+				? Collections.emptyMap()
+				: gitClient.getObjectIdsAtHead(pathsAndDirectories);
+
+		pristineDirectoriesForPaths = findPristineDirectories(paths, objectIdsAtHead, upstreamRemoteName);
+		if (!pristineDirectoriesForPaths.isEmpty()) {
+			LOGGER.info("{} file(s) lie in {} director(ies) that match an upstream version, and are safe to overwrite.",
+					pristineDirectoriesForPaths.size(), new HashSet<>(pristineDirectoriesForPaths.values()).size());
+		}
+
+		// Paths that don't exist at HEAD are kept with no blob, so that they are not looked up again
+		final Map<String, String> blobIdsAtHead = new HashMap<>();
+		for (final String path : paths) {
+			if (!pristineDirectoriesForPaths.containsKey(path)) {
+				blobIdsAtHead.put(path, objectIdsAtHead.get(path));
+			}
+		}
+		blobIdsAtHeadForPaths = blobIdsAtHead;
+	}
+
 	/**
 	 * This method determines if the latest commit at the specified path matches the contents of any commit of that file from
 	 * the upstream remote. Meaning that the file does not appear to contain customizations.
@@ -33,6 +83,13 @@ public class SafeOverwriteDeterminer {
 	 * @return true if the file at path has does not appear to contain customizations
 	 */
 	public boolean pathIsSafeToOverwrite(final String path, final String upstreamRemoteName) {
+		if (pristineDirectoriesForPaths.containsKey(path)) {
+			return true;
+		}
+		if (blobIdsAtHeadForPaths.containsKey(path)) {
+			final String blobIdAtHead = blobIdsAtHeadForPaths.get(path);
+			return blobIdAtHead != null && gitClient.getUpstreamBlobIndex(upstreamRemoteName).contains(path, blobIdAtHead);
+		}
 		RevCommit latestCommitForPath = gitClient.getLatestCommitForPath(path);
 		if (latestCommitForPath == null) {
 			return false;
@@ -41,13 +98,42 @@ public class SafeOverwriteDeterminer {
 		if (!latestCommitContentHash.isPresent()) {
 			return false;
 		}
-		Iterable<RevCommit> authoritativeCommits = gitClient.getAllCommitsForPathInAllBranches(path, upstreamRemoteName);
-		Set<String> authoritativeContentHashes = StreamSupport.stream(authoritativeCommits.spliterator(), false)
-				.map(revCommit -> gitClient.getContentHashOfPathAtCommit(path, revCommit))
-				.filter(Optional::isPresent)
-				.map(Optional::get)
-				.collect(Collectors.toSet());
-		return authoritativeContentHashes.contains(latestCommitContentHash.get());
+		return gitClient.getUpstreamBlobIndex(upstreamRemoteName).contains(path, latestCommitContentHash.get());
+	}
+
+	/**
+	 * Finds, for each of the given paths that exists at HEAD, the outermost directory containing it whose tree at HEAD has existed at that
+	 * directory in the upstream history. Each directory is looked up in the upstream index once.
+	 *
+	 * @param paths              the paths of files, relative to the git root
+	 * @param objectIdsAtHead    the ids of the objects at HEAD of the paths and their containing directories
+	 * @param upstreamRemoteName the upstream remote name that contains commits that are considered authoritative
+	 * @return a map of each path in an unmodified directory to that directory
+	 */
+	private Map<String, String> findPristineDirectories(final Collection<String> paths, final Map<String, String> objectIdsAtHead,
+			final String upstreamRemoteName) {
+		if (objectIdsAtHead.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		final UpstreamBlobIndex upstreamBlobIndex = gitClient.getUpstreamBlobIndex(upstreamRemoteName);
+		final Map<String, Boolean> directoryIsPristine = new HashMap<>();
+		final Map<String, String> pristineDirectories = new HashMap<>();
+		for (final String path : paths) {
+			// Files that don't exist at HEAD have no local contents to match, even in an unmodified directory
+			if (!objectIdsAtHead.containsKey(path)) {
+				continue;
+			}
+			for (final String directory : getParentDirectories(path)) {
+				final boolean pristine = directoryIsPristine.computeIfAbsent(directory, key -> objectIdsAtHead.containsKey(key)
+						&& upstreamBlobIndex.containsTree(key, objectIdsAtHead.get(key)));
+				if (pristine) {
+					pristineDirectories.put(path, directory);
+					break;
+				}
+			}
+		}
+		return pristineDirectories;
 	}
 
 }
@@ -6,6 +6,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -47,8 +48,20 @@ public class UpgradeController {
 
 	private final DiffConflictResolver diffConflictResolver;
 
+	private final ResolutionPlanApplier resolutionPlanApplier;
+
+	private final UpgradeForecaster upgradeForecaster;
+
 	private final GitClient gitClient;
 
+	private int threads = WorkerPool.getDefaultThreads();
+
+	private File planOutputFile;
+
+	private File planInputFile;
+
+	private boolean preview;
+
 	/**
 	 * Constructor.
 	 *
@@ -56,6 +69,7 @@ public class UpgradeController {
 	 */
 	public UpgradeController(final File workingDir) {
 		this(buildGitClient(workingDir));
+		this.threads = WorkerPoolConfig.load().getThreads();
 	}
 
 	UpgradeController(final GitClient gitClient) {
@@ -65,6 +79,8 @@ public class UpgradeController {
 		this.merger = new Merger(gitClient);
 		this.mergeConflictResolver = new MergeConflictResolver(gitClient);
 		this.diffConflictResolver = new DiffConflictResolver(gitClient);
+		this.resolutionPlanApplier = new ResolutionPlanApplier(gitClient);
+		this.upgradeForecaster = new UpgradeForecaster(gitClient, mergeConflictResolver);
 	}
 
 	private static GitClient buildGitClient(final File workingDir) {
@@ -79,6 +95,96 @@ public class UpgradeController {
 		}
 	}
 
+	/**
+	 * Sets whether diff resolution only considers files that the upstream branch has changed since it was last merged, rather than every
+	 * file that differs from the upstream branch. Enabled by default.
+	 *
+	 * @param diffUpstreamChangesOnly true to only consider files changed by the upstream branch
+	 */
+	public void setDiffUpstreamChangesOnly(final boolean diffUpstreamChangesOnly) {
+		diffConflictResolver.setUpstreamChangesOnly(diffUpstreamChangesOnly);
+	}
+
+	/**
+	 * Sets the number of worker threads used to resolve conflicts in parallel. Defaults to the {@code threads} value in
+	 * {@code ~/.smc-upgrader.json}, or the number of available processors.
+	 *
+	 * @param threads the number of worker threads, at least 1
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the file to which the conflict and diff resolutions are written as a {@link ResolutionPlan}, instead of being applied.
+	 * The working directory and index are left as they were after the merge, so that the plan can be applied later with
+	 * {@link #setPlanInputFile(File)}.
+	 *
+	 * @param planOutputFile the plan file to write, or null to apply the resolutions
+	 */
+	public void setPlanOutputFile(final File planOutputFile) {
+		this.planOutputFile = planOutputFile;
+	}
+
+	/**
+	 * Sets the {@link ResolutionPlan} file to apply in place of conflict and diff resolution, so that the resolutions are not decided
+	 * again.
+	 *
+	 * @param planInputFile the plan file to apply, or null to decide and apply the resolutions
+	 */
+	public void setPlanInputFile(final File planInputFile) {
+		this.planInputFile = planInputFile;
+	}
+
+	/**
+	 * Sets whether to only preview the merge, by merging the upstream branch in memory and reporting how each conflict it would produce
+	 * would be resolved. The working directory and index are not modified, and the patch revert, merge and resolution steps are skipped.
+	 *
+	 * @param preview true to only preview the merge
+	 */
+	public void setPreview(final boolean preview) {
+		this.preview = preview;
+	}
+
+	/**
+	 * Forecasts the upgrade from the current version to the current and each later supported version, and logs a table of the number of
+	 * conflicts and automatically resolvable conflicts of each hop. The working directory and index are not modified.
+	 *
+	 * @param supportedVersions the supported versions, in upgrade order
+	 * @param doFetch           fetch the latest updates from the remote
+	 */
+	public void forecastUpgrades(final List<String> supportedVersions, final boolean doFetch) {
+		final String currentVersion = convertVersionToReleaseFormat(determineCurrentVersion());
+		LOGGER.info("Detected current version {}.", currentVersion);
+
+		final int currentVersionIndex = supportedVersions.indexOf(currentVersion);
+		if (currentVersionIndex == -1) {
+			throw new LoggableException("Current version " + currentVersion + " is not one of the supported versions " + supportedVersions
+					+ ".");
+		}
+
+		final String upstreamRemoteName = upstreamRemoteManager.getUpstreamRemoteName();
+
+		if (doFetch) {
+			LOGGER.info("Fetching latest updates from remote '{}'", upstreamRemoteName);
+			gitClient.fetch(upstreamRemoteName);
+		} else {
+			LOGGER.info("Skipping fetch.");
+		}
+
+		final List<UpgradeForecaster.UpgradeForecast> forecasts;
+		try (WorkerPool workerPool = new WorkerPool(threads)) {
+			mergeConflictResolver.setExecutor(workerPool.getExecutor());
+			forecasts = upgradeForecaster.forecast(upstreamRemoteName, currentVersion,
+					supportedVersions.subList(currentVersionIndex, supportedVersions.size()), workerPool.getExecutor());
+		}
+
+		LOGGER.info("Upgrade forecast:\n\n" + UpgradeForecaster.formatTable(currentVersion, forecasts));
+	}
+
 	/**
 	 * Performs the upgrade, by merging an upstream branch and resolving conflicts.
 	 * Setting both {@code doMerge} and {@code doConflictResolution} to {@code false} will not modify the local working state and is akin to a dry
@@ -111,6 +217,15 @@ public class UpgradeController {
 			LOGGER.info("Skipping fetch.");
 		}
 
+		if (preview) {
+			try (WorkerPool workerPool = new WorkerPool(threads)) {
+				mergeConflictResolver.setExecutor(workerPool.getExecutor());
+				mergeConflictResolver.previewMergeConflicts(upstreamRemoteName, version);
+			}
+			LOGGER.info("Preview complete. The working directory was not modified.");
+			return;
+		}
+
 		if (doRevertPatches) {
 			if (!currentVersion.equals(version)) {
 				patchReverter.revertPatches(upstreamRemoteName, currentVersion);
@@ -126,6 +241,33 @@ public class UpgradeController {
 			LOGGER.info("Skipping merge.");
 		}
 
+		try (WorkerPool workerPool = new WorkerPool(threads)) {
+			mergeConflictResolver.setExecutor(workerPool.getExecutor());
+			mergeConflictResolver.setBackgroundExecutor(workerPool.getBackgroundExecutor());
+			diffConflictResolver.setExecutor(workerPool.getExecutor());
+			diffConflictResolver.setBackgroundExecutor(workerPool.getBackgroundExecutor());
+			resolutionPlanApplier.setExecutor(workerPool.getExecutor());
+
+			if (planInputFile != null) {
+				LOGGER.info("Applying resolution plan {}.", planInputFile);
+				resolutionPlanApplier.apply(ResolutionPlan.read(planInputFile.toPath()));
+			} else if (planOutputFile != null) {
+				writeResolutionPlan(upstreamRemoteName, version, doConflictResolution, doDiffResolution);
+				return;
+			} else {
+				resolveConflicts(upstreamRemoteName, version, doConflictResolution, doDiffResolution);
+			}
+		}
+
+		LOGGER.info("Use your IDE to resolve any remaining merge conflicts, or run the following command:\n\n"
+				+ "git mergetool\n\n"
+				+ "Once all conflicts have been resolved, stage the changes and commit to complete the merge:\n\n"
+				+ "git add -A .\n"
+				+ "git commit");
+	}
+
+	private void resolveConflicts(final String upstreamRemoteName, final String version, final boolean doConflictResolution,
+			final boolean doDiffResolution) {
 		if (doConflictResolution) {
 			mergeConflictResolver.resolveMergeConflicts(upstreamRemoteName);
 		} else {
@@ -137,12 +279,26 @@ public class UpgradeController {
 		} else {
 			LOGGER.info("Skipping diff conflict resolution.");
 		}
+	}
 
-		LOGGER.info("Use your IDE to resolve any remaining merge conflicts, or run the following command:\n\n"
-				+ "git mergetool\n\n"
-				+ "Once all conflicts have been resolved, stage the changes and commit to complete the merge:\n\n"
-				+ "git add -A .\n"
-				+ "git commit");
+	private void writeResolutionPlan(final String upstreamRemoteName, final String version, final boolean doConflictResolution,
+			final boolean doDiffResolution) {
+		// Merge conflict resolutions take precedence: while conflicts are unresolved, a conflicting path may also differ from upstream
+		final ResolutionPlan plan = new ResolutionPlan();
+		if (doConflictResolution) {
+			plan.addAll(mergeConflictResolver.planMergeConflicts(upstreamRemoteName));
+		} else {
+			LOGGER.info("Skipping merge conflict resolution.");
+		}
+
+		if (doDiffResolution) {
+			plan.addAll(diffConflictResolver.planDiffConflicts(upstreamRemoteName, version));
+		} else {
+			LOGGER.info("Skipping diff conflict resolution.");
+		}
+
+		plan.write(planOutputFile.toPath());
+		LOGGER.info("Wrote {} planned resolution(s) to {}. Apply them with --apply-plan.", plan.getResolutions().size(), planOutputFile);
 	}
 
 	/**
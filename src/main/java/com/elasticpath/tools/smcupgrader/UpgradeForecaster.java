@@ -0,0 +1,192 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static com.elasticpath.tools.smcupgrader.UpgradeController.LOGGER;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.lib.Ref;
+
+/**
+ * Forecasts the cost of upgrading to each of a sequence of versions, by merging the release branch of each version into the current
+ * branch in memory and deciding how each resulting conflict would be resolved. Neither the working directory nor the index is modified.
+ *
+ * <p>The in-core merges, which dominate the cost, are run in parallel; they share the repository's object database, so objects read by
+ * one merge are served from the pack cache to the others. The conflicts of each merge are then decided in turn, each decision itself
+ * being made in parallel.</p>
+ *
+ * <p>The intermediate states of a multi-hop upgrade do not exist until the upgrade is performed, so each consecutive hop is forecast as
+ * the conflicts of the direct jump to its target version that the direct jump to its source version does not already have.</p>
+ */
+public class UpgradeForecaster {
+	private static final String ROW_FORMAT = "%-18s %10s %15s %8s %10s %10s";
+
+	private final GitClient gitClient;
+
+	private final MergeConflictResolver mergeConflictResolver;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param gitClient             the git client
+	 * @param mergeConflictResolver the resolver with which conflicts are decided
+	 */
+	public UpgradeForecaster(final GitClient gitClient, final MergeConflictResolver mergeConflictResolver) {
+		this.gitClient = gitClient;
+		this.mergeConflictResolver = mergeConflictResolver;
+	}
+
+	/**
+	 * Forecasts the upgrade from the current version to each of the given versions. Versions without a release branch in the upstream
+	 * remote are skipped.
+	 *
+	 * @param upstreamRemoteName the name of the upstream remote
+	 * @param currentVersion     the current version
+	 * @param targetVersions     the versions to forecast, in upgrade order
+	 * @param executor           the executor on which to run the in-core merges
+	 * @return the forecast for each version with a release branch, in the given order
+	 */
+	public List<UpgradeForecast> forecast(final String upstreamRemoteName, final String currentVersion, final List<String> targetVersions,
+			final Executor executor) {
+		final Map<String, Ref> releaseBranches = new ConcurrentHashMap<>();
+		for (final String version : targetVersions) {
+			try {
+				releaseBranches.put(version, gitClient.getReleaseBranch(upstreamRemoteName, version));
+			} catch (final LoggableException e) {
+				LOGGER.warn("Skipping {}: {}", version, e.getMessage());
+			}
+		}
+
+		LOGGER.info("Merging {} release branch(es) in memory...", releaseBranches.size());
+		final Map<String, List<IndexEntry>> conflictingIndexEntries = new ConcurrentHashMap<>();
+		final Map<String, Long> mergeNanos = new ConcurrentHashMap<>();
+		ProcessCollectionInParallelWithProgress.process(releaseBranches.keySet(), version -> {
+			final long start = System.nanoTime();
+			conflictingIndexEntries.put(version, gitClient.previewMergeConflicts(releaseBranches.get(version)));
+			mergeNanos.put(version, System.nanoTime() - start);
+			return true;
+		}, executor);
+
+		final List<UpgradeForecast> forecasts = new ArrayList<>();
+		String fromVersion = currentVersion;
+		Set<String> fromConflictingPaths = new HashSet<>();
+		for (final String version : targetVersions) {
+			if (!releaseBranches.containsKey(version)) {
+				continue;
+			}
+
+			final long start = System.nanoTime();
+			final List<Resolution> resolutions = mergeConflictResolver.decidePreviewedMergeConflicts(conflictingIndexEntries.get(version),
+					upstreamRemoteName);
+			final long elapsedNanos = mergeNanos.get(version) + System.nanoTime() - start;
+
+			final Set<String> conflictingPaths = resolutions.stream()
+					.map(resolution -> resolution.getChange().getPath())
+					.collect(Collectors.toSet());
+			final long autoResolvableCount = resolutions.stream()
+					.filter(resolution -> resolution.getStrategy() != ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED)
+					.count();
+			final Set<String> newConflictingPaths = new HashSet<>(conflictingPaths);
+			newConflictingPaths.removeAll(fromConflictingPaths);
+
+			forecasts.add(new UpgradeForecast(fromVersion, version, resolutions.size(), autoResolvableCount, newConflictingPaths.size(),
+					TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+			fromVersion = version;
+			fromConflictingPaths = conflictingPaths;
+		}
+		return forecasts;
+	}
+
+	/**
+	 * Formats the given forecasts as a table with one row for each hop.
+	 *
+	 * @param currentVersion the current version
+	 * @param forecasts      the forecasts
+	 * @return the table
+	 */
+	public static String formatTable(final String currentVersion, final List<UpgradeForecast> forecasts) {
+		final StringBuilder table = new StringBuilder();
+		table.append(String.format(ROW_FORMAT, "Hop", "Conflicts", "Auto-resolvable", "Manual", "New in hop", "Time (ms)"));
+		for (final UpgradeForecast forecast : forecasts) {
+			table.append(System.lineSeparator()).append(String.format(ROW_FORMAT,
+					forecast.getFromVersion() + " -> " + forecast.getToVersion(),
+					forecast.getConflictCount(),
+					forecast.getAutoResolvableCount(),
+					forecast.getConflictCount() - forecast.getAutoResolvableCount(),
+					forecast.getNewConflictCount(),
+					forecast.getElapsedMillis()));
+		}
+		table.append(System.lineSeparator()).append(System.lineSeparator())
+				.append("Conflicts, auto-resolvable and manual counts are for the direct upgrade from ").append(currentVersion)
+				.append(" to the target of each hop.");
+		return table.toString();
+	}
+
+	/**
+	 * The forecast of one hop of an upgrade.
+	 */
+	public static final class UpgradeForecast {
+		private final String fromVersion;
+
+		private final String toVersion;
+
+		private final long conflictCount;
+
+		private final long autoResolvableCount;
+
+		private final long newConflictCount;
+
+		private final long elapsedMillis;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param fromVersion         the version from which the hop starts
+		 * @param toVersion           the version to which the hop upgrades
+		 * @param conflictCount       the number of conflicts of the direct upgrade to the target version
+		 * @param autoResolvableCount the number of those conflicts that would be resolved automatically
+		 * @param newConflictCount    the number of those conflicts that the direct upgrade to the source version does not have
+		 * @param elapsedMillis       the time taken to merge and decide the conflicts, in milliseconds
+		 */
+		public UpgradeForecast(final String fromVersion, final String toVersion, final long conflictCount, final long autoResolvableCount,
+				final long newConflictCount, final long elapsedMillis) {
+			this.fromVersion = fromVersion;
+			this.toVersion = toVersion;
+			this.conflictCount = conflictCount;
+			this.autoResolvableCount = autoResolvableCount;
+			this.newConflictCount = newConflictCount;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		public String getFromVersion() {
+			return fromVersion;
+		}
+
+		public String getToVersion() {
+			return toVersion;
+		}
+
+		public long getConflictCount() {
+			return conflictCount;
+		}
+
+		public long getAutoResolvableCount() {
+			return autoResolvableCount;
+		}
+
+		public long getNewConflictCount() {
+			return newConflictCount;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+	}
+}
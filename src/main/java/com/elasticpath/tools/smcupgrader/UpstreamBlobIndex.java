@@ -0,0 +1,37 @@
+package com.elasticpath.tools.smcupgrader;
+
+/**
+ * An index of every blob that has existed at each path, and every tree that has existed at each directory, in the upstream remote
+ * branches. Allows checking whether the contents of a local file or directory match any historical upstream version of it without
+ * walking the upstream history for each path.
+ */
+public interface UpstreamBlobIndex {
+
+	/**
+	 * Determines whether the given blob has existed at the given path in any upstream commit.
+	 *
+	 * @param path    the path of a file, relative to the git root
+	 * @param blobSha the SHA of the Git BLOB containing the file contents
+	 * @return true if the blob has existed at the path in the upstream history
+	 */
+	boolean contains(String path, String blobSha);
+
+	/**
+	 * Determines whether the given tree has existed at the given directory in any upstream commit. If it has, every file in the directory
+	 * matches a historical upstream version of that file.
+	 *
+	 * @param directoryPath the path of a directory, relative to the git root
+	 * @param treeSha       the SHA of the Git tree listing the directory contents
+	 * @return true if the tree has existed at the directory in the upstream history
+	 */
+	boolean containsTree(String directoryPath, String treeSha);
+
+	/**
+	 * Returns the number of distinct blobs that have existed at the given path in the upstream history; that is, the number of upstream
+	 * revisions of the file.
+	 *
+	 * @param path the path of a file, relative to the git root
+	 * @return the number of distinct blobs, or 0 if the path has never existed upstream
+	 */
+	int getRevisionCount(String path);
+}
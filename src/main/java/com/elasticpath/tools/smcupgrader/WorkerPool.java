@@ -0,0 +1,89 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dedicated, fixed-size pool of worker threads for processing collections in parallel.
+ *
+ * <p>The work done by the upgrader is dominated by blocking reads from the git object database and file writes, so the pool is sized
+ * independently of the JVM-wide common fork-join pool, which is sized for CPU-bound work. The queue of pending tasks is bounded; once it
+ * is full, the submitting thread runs each further task itself, which throttles submission to the rate the workers can sustain.
+ * Optional work, such as reading ahead, is instead submitted through the {@link #getBackgroundExecutor() background executor}, which has
+ * its own thread and bounded queue, so that it is neither crowded out by the queued tasks nor run on the submitting thread.</p>
+ */
+public final class WorkerPool implements AutoCloseable {
+	private static final int QUEUED_TASKS_PER_THREAD = 4;
+
+	private static final int QUEUED_BACKGROUND_TASKS = 256;
+
+	private final ThreadPoolExecutor executor;
+
+	private final ThreadPoolExecutor backgroundExecutor;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threads the number of worker threads
+	 */
+	public WorkerPool(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of worker threads must be at least 1, but was " + threads);
+		}
+
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * QUEUED_TASKS_PER_THREAD),
+				runnable -> newDaemonThread(runnable, "smc-upgrader-worker-" + threadCount.incrementAndGet()),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		backgroundExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(QUEUED_BACKGROUND_TASKS),
+				runnable -> newDaemonThread(runnable, "smc-upgrader-background"),
+				new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	private static Thread newDaemonThread(final Runnable runnable, final String name) {
+		final Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Returns the number of worker threads used when none is configured: one per available processor.
+	 *
+	 * @return the default number of worker threads
+	 */
+	public static int getDefaultThreads() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Returns the executor that runs tasks on the worker threads.
+	 *
+	 * @return the executor
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Returns an executor that runs optional tasks on a background thread of their own, apart from the worker threads. Once its queue is
+	 * full, further tasks are rejected with a {@link java.util.concurrent.RejectedExecutionException} instead of being run on the
+	 * submitting thread.
+	 *
+	 * @return the background executor
+	 */
+	public Executor getBackgroundExecutor() {
+		return backgroundExecutor;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+		// Background tasks are optional, so those still queued are discarded
+		backgroundExecutor.shutdownNow();
+	}
+}
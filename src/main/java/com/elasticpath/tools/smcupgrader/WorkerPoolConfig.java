@@ -0,0 +1,94 @@
+package com.elasticpath.tools.smcupgrader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.google.gson.Gson;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Machine-wide configuration for the {@link WorkerPool}.
+ *
+ * <p>Loaded from {@code ~/.smc-upgrader.json}, where the number of worker threads is a top-level {@code threads} setting:</p>
+ *
+ * <pre>
+ * {
+ *   "threads": 16
+ * }
+ * </pre>
+ *
+ * <p>When the file is absent, or the setting is unspecified or invalid, one thread per available processor is used.</p>
+ */
+public class WorkerPoolConfig {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPoolConfig.class);
+	private static final String CONFIG_FILE_NAME = ".smc-upgrader.json";
+
+	private final int threads;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threads the number of worker threads
+	 */
+	public WorkerPoolConfig(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Wrapper matching the JSON file structure.
+	 */
+	private static final class ConfigFile {
+		private Integer threads;
+	}
+
+	/**
+	 * Load the configuration from {@code ~/.smc-upgrader.json}, resolved via the {@code user.home} system property.
+	 *
+	 * @return the loaded configuration, with the default applied for any missing file or setting
+	 */
+	public static WorkerPoolConfig load() {
+		return load(new File(System.getProperty("user.home"), CONFIG_FILE_NAME));
+	}
+
+	/**
+	 * Load the configuration from the given file.
+	 *
+	 * @param configFile the configuration file
+	 * @return the loaded configuration, with the default applied for any missing file or setting
+	 */
+	public static WorkerPoolConfig load(final File configFile) {
+		if (configFile == null || !configFile.isFile()) {
+			return new WorkerPoolConfig(WorkerPool.getDefaultThreads());
+		}
+
+		try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(configFile.toPath()), StandardCharsets.UTF_8)) {
+			final ConfigFile config = new Gson().fromJson(reader, ConfigFile.class);
+			if (config == null || config.threads == null) {
+				return new WorkerPoolConfig(WorkerPool.getDefaultThreads());
+			}
+			if (config.threads < 1) {
+				LOGGER.warn("Ignoring invalid 'threads' setting {} in {}. Using defaults.", config.threads,
+						configFile.getAbsolutePath());
+				return new WorkerPoolConfig(WorkerPool.getDefaultThreads());
+			}
+			return new WorkerPoolConfig(config.threads);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Could not read worker pool configuration from {}. Using defaults.", configFile.getAbsolutePath(), e);
+			return new WorkerPoolConfig(WorkerPool.getDefaultThreads());
+		}
+	}
+
+	/**
+	 * Get the number of worker threads.
+	 *
+	 * @return the number of worker threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+}
@@ -0,0 +1,135 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the content fingerprint of each commit, keyed by commit id. Commits are immutable, so a fingerprint never needs to be computed
+ * twice; fingerprints are appended to a file as they are computed, and reloaded by later runs.
+ *
+ * <p>The file name includes the version of the fingerprint algorithm, so that fingerprints computed by a previous algorithm are never
+ * reused.</p>
+ */
+public class CommitFingerprintCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CommitFingerprintCache.class);
+
+	private static final String CACHE_FILE_NAME = "commit-fingerprints-v1.bin";
+	private static final int FINGERPRINT_LENGTH = 32;
+	private static final int RECORD_LENGTH = Constants.OBJECT_ID_LENGTH + FINGERPRINT_LENGTH;
+	private static final int HEX_RADIX = 16;
+	private static final int UNSIGNED_BYTE_MASK = 0xff;
+	private static final int NIBBLE_BITS = 4;
+	private static final int NIBBLE_MASK = 0xf;
+
+	private final Path cacheFile;
+
+	private volatile Map<ObjectId, String> fingerprints;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param storeDirectory the directory in which the cache file is stored
+	 */
+	public CommitFingerprintCache(final Path storeDirectory) {
+		this.cacheFile = storeDirectory.resolve(CACHE_FILE_NAME);
+	}
+
+	/**
+	 * Returns the fingerprint of the given commit, computing and storing it if it is not yet cached.
+	 *
+	 * @param commitId            the commit id
+	 * @param fingerprintFunction computes the fingerprint of a commit, as 64 hexadecimal digits
+	 * @param <T>                 the commit type
+	 * @return the fingerprint
+	 */
+	public <T extends AnyObjectId> String computeIfAbsent(final T commitId, final Function<T, String> fingerprintFunction) {
+		final Map<ObjectId, String> cachedFingerprints = getFingerprints();
+		final String cachedFingerprint = cachedFingerprints.get(commitId);
+		if (cachedFingerprint != null) {
+			return cachedFingerprint;
+		}
+
+		final String fingerprint = fingerprintFunction.apply(commitId);
+		if (cachedFingerprints.putIfAbsent(commitId.toObjectId(), fingerprint) == null) {
+			append(commitId, fingerprint);
+		}
+		return fingerprint;
+	}
+
+	private Map<ObjectId, String> getFingerprints() {
+		Map<ObjectId, String> result = fingerprints;
+		if (result == null) {
+			synchronized (this) {
+				result = fingerprints;
+				if (result == null) {
+					result = load();
+					fingerprints = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private Map<ObjectId, String> load() {
+		final Map<ObjectId, String> loadedFingerprints = new ConcurrentHashMap<>();
+		if (!Files.isRegularFile(cacheFile)) {
+			return loadedFingerprints;
+		}
+
+		try {
+			final byte[] contents = Files.readAllBytes(cacheFile);
+			final int recordsLength = contents.length - contents.length % RECORD_LENGTH;
+			for (int offset = 0; offset < recordsLength; offset += RECORD_LENGTH) {
+				loadedFingerprints.put(ObjectId.fromRaw(contents, offset),
+						toHex(Arrays.copyOfRange(contents, offset + Constants.OBJECT_ID_LENGTH, offset + RECORD_LENGTH)));
+			}
+			if (recordsLength != contents.length) {
+				// A trailing partial record can only come from an interrupted write; drop it so that later records stay aligned
+				try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+					channel.truncate(recordsLength);
+				}
+			}
+			LOGGER.debug("Loaded {} cached commit fingerprint(s) from {}", loadedFingerprints.size(), cacheFile);
+		} catch (final IOException e) {
+			LOGGER.debug("Ignoring unreadable commit fingerprint cache {}", cacheFile, e);
+		}
+		return loadedFingerprints;
+	}
+
+	private synchronized void append(final AnyObjectId commitId, final String fingerprint) {
+		final byte[] record = new byte[RECORD_LENGTH];
+		commitId.copyRawTo(record, 0);
+		for (int i = 0; i < FINGERPRINT_LENGTH; i++) {
+			record[Constants.OBJECT_ID_LENGTH + i] = (byte) Integer.parseInt(fingerprint.substring(2 * i, 2 * i + 2), HEX_RADIX);
+		}
+
+		try {
+			Files.createDirectories(cacheFile.getParent());
+			Files.write(cacheFile, record, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (final IOException e) {
+			LOGGER.debug("Could not store commit fingerprint in {}", cacheFile, e);
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hexString = new StringBuilder();
+		for (final byte b : bytes) {
+			hexString.append(Character.forDigit((b & UNSIGNED_BYTE_MASK) >> NIBBLE_BITS, HEX_RADIX));
+			hexString.append(Character.forDigit(b & NIBBLE_MASK, HEX_RADIX));
+		}
+		return hexString.toString();
+	}
+}
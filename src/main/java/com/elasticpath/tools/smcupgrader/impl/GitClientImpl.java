@@ -2,59 +2,86 @@ package com.elasticpath.tools.smcupgrader.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
-import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.RemoteAddCommand;
 import org.eclipse.jgit.api.ResetCommand;
-import org.eclipse.jgit.api.RevertCommand;
+import org.eclipse.jgit.api.RmCommand;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
 import org.eclipse.jgit.dircache.DirCacheEntry;
-import org.eclipse.jgit.errors.IncorrectObjectTypeException;
-import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.errors.MissingObjectException;
-import org.eclipse.jgit.lib.AbbreviatedObjectId;
-import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.CommitBuilder;
 import org.eclipse.jgit.lib.Config;
-import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.merge.ResolveMerger;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.elasticpath.tools.smcupgrader.Change;
+import com.elasticpath.tools.smcupgrader.FilePermissions;
 import com.elasticpath.tools.smcupgrader.GitClient;
 import com.elasticpath.tools.smcupgrader.IndexEntry;
 import com.elasticpath.tools.smcupgrader.LoggableException;
 import com.elasticpath.tools.smcupgrader.MergeException;
+import com.elasticpath.tools.smcupgrader.RecordedResolution;
 import com.elasticpath.tools.smcupgrader.RemoteRepository;
+import com.elasticpath.tools.smcupgrader.UpstreamBlobIndex;
 
 /**
  * Performs git operations.
@@ -66,9 +93,22 @@ public class GitClientImpl implements GitClient {
 			+ ".com/elasticpath/smc-upgrader#git-merge-failed-usually-this-means-that-git-could-not-find-a-common-ancestor-commit"
 			+ "-between-your-branch-and-the-self-managed-commerce-release-branch for details.";
 	private static final String BRANCH_NAME_PREFIX = "release/";
+	private static final String CACHE_DIRECTORY_NAME = "smc-upgrader";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GitClientImpl.class);
 
 	private final Repository repository;
 
+	private final UpstreamBlobIndexStore upstreamBlobIndexStore;
+
+	private final CommitFingerprintCache commitFingerprintCache;
+
+	private final RecordedResolutionStore recordedResolutionStore;
+
+	private final Map<String, UpstreamBlobIndex> upstreamBlobIndexes = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<ObjectReader> scopedObjectReaders = new ThreadLocal<>();
+
 	/**
 	 * Constructor.
 	 *
@@ -76,6 +116,18 @@ public class GitClientImpl implements GitClient {
 	 */
 	public GitClientImpl(final Repository repository) {
 		this.repository = repository;
+		this.upstreamBlobIndexStore = new UpstreamBlobIndexStore(repository, getCacheDirectory());
+		this.commitFingerprintCache = new CommitFingerprintCache(getCacheDirectory());
+		this.recordedResolutionStore = new RecordedResolutionStore(getCacheDirectory());
+	}
+
+	/**
+	 * Returns the directory in which data derived from the repository is kept between runs.
+	 *
+	 * @return the cache directory, inside the git directory
+	 */
+	private Path getCacheDirectory() {
+		return repository.getDirectory().toPath().resolve(CACHE_DIRECTORY_NAME);
 	}
 
 	@Override
@@ -116,6 +168,7 @@ public class GitClientImpl implements GitClient {
 			if (exitCode != 0) {
 				throw new LoggableException("git fetch " + remoteName + " failed with exit code " + exitCode);
 			}
+			upstreamBlobIndexes.remove(remoteName);
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		} catch (final InterruptedException e) {
@@ -158,6 +211,16 @@ public class GitClientImpl implements GitClient {
 
 	@Override
 	public void merge(final Ref toMerge) {
+		// Check for a common ancestor first, so that a merge that cannot succeed never touches the working tree
+		try (RevWalk revWalk = new RevWalk(repository)) {
+			if (findMergeBase(revWalk, revWalk.parseCommit(repository.resolve(Constants.HEAD)),
+					revWalk.parseCommit(toMerge.getObjectId())) == null) {
+				throw new MergeException(NO_COMMON_ANCESTOR);
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
 		try (Git git = new Git(repository)) {
 			MergeResult result = git.merge()
 					.include(toMerge)
@@ -175,53 +238,153 @@ public class GitClientImpl implements GitClient {
 	}
 
 	@Override
-	public void revert(final AnyObjectId toRevert) {
-		try (Git git = new Git(repository)) {
-			final RevertCommand revertCommand = git.revert()
-					.include(toRevert);
-			revertCommand.call();
-			if (revertCommand.getFailingResult() != null) {
-				try {
-					cleanupUnmergedFiles();
-				} catch (IOException | GitAPIException ex) {
-					// Ignore
-				}
-				throw new RuntimeException(revertCommand.getFailingResult().toString());
+	public List<IndexEntry> previewMergeConflicts(final Ref toMerge) {
+		try (RevWalk revWalk = new RevWalk(repository);
+			 TreeWalk treeWalk = new TreeWalk(revWalk.getObjectReader())) {
+			final RevCommit headCommit = revWalk.parseCommit(repository.resolve(Constants.HEAD));
+			final RevCommit mergeCommit = revWalk.parseCommit(toMerge.getObjectId());
+			final RevCommit mergeBase = findMergeBase(revWalk, headCommit, mergeCommit);
+			if (mergeBase == null) {
+				throw new MergeException(NO_COMMON_ANCESTOR);
 			}
-		} catch (final GitAPIException e) {
-			try {
-				cleanupUnmergedFiles();
-			} catch (IOException | GitAPIException ex) {
-				// Ignore
+
+			// Merge in memory, without flushing the merge results: neither the index nor the working tree is read or written
+			final ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(repository, true);
+			if (merger.merge(false, headCommit, mergeCommit) || merger.getUnmergedPaths().isEmpty()) {
+				return Collections.emptyList();
+			}
+
+			// Describe each conflicting path as the index would after a real merge, with an entry for each of its stages
+			treeWalk.addTree(mergeBase.getTree());
+			treeWalk.addTree(headCommit.getTree());
+			treeWalk.addTree(mergeCommit.getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(PathFilterGroup.createFromStrings(merger.getUnmergedPaths()));
+
+			final List<IndexEntry> conflictingIndexEntries = new ArrayList<>();
+			while (treeWalk.next()) {
+				final String path = treeWalk.getPathString();
+				for (int tree = 0; tree < treeWalk.getTreeCount(); tree++) {
+					if (treeWalk.getRawMode(tree) != 0) {
+						conflictingIndexEntries.add(new IndexEntry(path, IndexEntry.Stage.BASE.ordinal() + tree,
+								treeWalk.getObjectId(tree).name()));
+					}
+				}
 			}
+			return conflictingIndexEntries;
+		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	/**
+	 * Finds the best common ancestor of the given commits.
+	 *
+	 * @param revWalk the rev walk in which the commits were parsed
+	 * @param first   a commit
+	 * @param second  another commit
+	 * @return the merge-base, or null if the commits have no common ancestor
+	 * @throws IOException if the history cannot be read
+	 */
+	private RevCommit findMergeBase(final RevWalk revWalk, final RevCommit first, final RevCommit second) throws IOException {
+		revWalk.reset();
+		revWalk.setRevFilter(RevFilter.MERGE_BASE);
+		revWalk.markStart(first);
+		revWalk.markStart(second);
+		final RevCommit mergeBase = revWalk.next();
+		revWalk.reset();
+		revWalk.setRevFilter(RevFilter.ALL);
+		return mergeBase;
+	}
+
 	@Override
-	public Map<String, IndexDiff.StageState> getConflicts() {
-		try (Git git = new Git(repository)) {
-			final Status status = git.status().call();
-			return status.getConflictingStageState();
-		} catch (final GitAPIException e) {
+	public List<RevCommit> revertAll(final List<RevCommit> toRevert) {
+		try (ObjectReader reader = repository.newObjectReader();
+			 RevWalk revWalk = new RevWalk(reader);
+			 ObjectInserter inserter = repository.newObjectInserter()) {
+			final RevCommit headCommit = revWalk.parseCommit(repository.resolve(Constants.HEAD));
+			final List<RevCommit> revertedCommits = new ArrayList<>();
+			final StringBuilder message = new StringBuilder();
+
+			// Revert each commit onto the result of the previous reverts: a three-way merge with the commit as the base and its parent as
+			// "theirs", entirely in memory
+			ObjectId resultTree = headCommit.getTree();
+			for (final RevCommit commit : toRevert) {
+				final RevCommit parsedCommit = revWalk.parseCommit(commit);
+				final RevCommit parent = revWalk.parseCommit(parsedCommit.getParent(0));
+
+				final ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(inserter, repository.getConfig());
+				merger.setBase(parsedCommit.getTree());
+				if (merger.merge(resultTree, parent.getTree())) {
+					resultTree = merger.getResultTreeId();
+					revertedCommits.add(commit);
+					message.append("Revert \"").append(parsedCommit.getShortMessage()).append("\"\n")
+							.append("This reverts commit ").append(parsedCommit.getId().name()).append(".\n\n");
+				} else {
+					LOGGER.debug("Revert of commit '{}' conflicts in {}", parsedCommit.getShortMessage(),
+							merger.getMergeResults().keySet());
+				}
+			}
+
+			if (revertedCommits.isEmpty()) {
+				return revertedCommits;
+			}
+
+			final PersonIdent ident = new PersonIdent(repository);
+			final CommitBuilder commitBuilder = new CommitBuilder();
+			commitBuilder.setTreeId(resultTree);
+			commitBuilder.setParentId(headCommit);
+			commitBuilder.setAuthor(ident);
+			commitBuilder.setCommitter(ident);
+			commitBuilder.setMessage(revertedCommits.size() == 1
+					? message.toString().trim() + "\n"
+					: "Revert " + revertedCommits.size() + " patches\n\n" + message.toString().trim() + "\n");
+			final ObjectId revertCommitId = inserter.insert(commitBuilder);
+			inserter.flush();
+
+			// Update the index and working directory in one pass; this fails without touching anything if it would overwrite local
+			// changes
+			checkoutTree(headCommit.getTree(), revWalk.parseTree(resultTree));
+
+			final RefUpdate refUpdate = repository.updateRef(Constants.HEAD);
+			refUpdate.setNewObjectId(revertCommitId);
+			refUpdate.setExpectedOldObjectId(headCommit);
+			refUpdate.setRefLogMessage("revert: " + revertedCommits.size() + " patch(es)", false);
+			final RefUpdate.Result result = refUpdate.update(revWalk);
+			if (result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.NEW) {
+				// Put the index and working directory back, so that the revert is not left behind as uncommitted changes
+				checkoutTree(revWalk.parseTree(resultTree), headCommit.getTree());
+				throw new RuntimeException("Could not update HEAD to revert commit " + revertCommitId.name() + ": " + result);
+			}
+
+			return revertedCommits;
+		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	private void checkoutTree(final RevTree fromTree, final RevTree toTree) throws IOException {
+		final DirCache dirCache = repository.lockDirCache();
+		try {
+			final DirCacheCheckout checkout = new DirCacheCheckout(repository, fromTree, dirCache, toTree);
+			checkout.setFailOnConflict(true);
+			checkout.checkout();
+		} finally {
+			dirCache.unlock();
+		}
+	}
+
 	@Override
-	public Set<IndexEntry> getStatusIndexEntries() {
-		final Set<IndexEntry> entries = new HashSet<>();
-		final DirCache index;
+	public List<IndexEntry> getConflictingIndexEntries() {
+		final List<IndexEntry> entries = new ArrayList<>();
 		try {
-			index = repository.lockDirCache();
-			try {
-				for (int i = 0; i < index.getEntryCount(); i++) {
-					final DirCacheEntry entry = index.getEntry(i);
+			final DirCache index = repository.readDirCache();
+			for (int i = 0; i < index.getEntryCount(); i++) {
+				final DirCacheEntry entry = index.getEntry(i);
 
+				if (entry.getStage() != DirCacheEntry.STAGE_0) {
 					entries.add(new IndexEntry(entry.getPathString(), entry.getStage(), entry.getObjectId().getName()));
 				}
-			} finally {
-				index.unlock();
 			}
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
@@ -231,50 +394,167 @@ public class GitClientImpl implements GitClient {
 	}
 
 	@Override
-	public Iterable<RevCommit> getAllCommits() {
-		try (Git git = new Git(repository)) {
-			return git.log()
-					.call();
-		} catch (final GitAPIException e) {
+	public void recordPendingConflicts(final List<Change> conflicts) {
+		try {
+			final List<ObjectId> mergeHeads = repository.readMergeHeads();
+			if (mergeHeads == null || mergeHeads.isEmpty()) {
+				return;
+			}
+			recordedResolutionStore.setPendingConflicts(mergeHeads.get(0), conflicts);
+		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	@Override
-	public Iterable<RevCommit> getAllCommitsForBranch(final Ref branch) {
-		try (Git git = new Git(repository)) {
-			return git.log()
-					.add(branch.getObjectId())
-					.call();
-		} catch (final GitAPIException | IncorrectObjectTypeException | MissingObjectException e) {
+	public int learnCommittedResolutions(final boolean record) {
+		final Optional<RecordedResolutionStore.PendingConflicts> pendingConflicts = recordedResolutionStore.getPendingConflicts();
+		if (!pendingConflicts.isPresent()) {
+			return 0;
+		}
+
+		try (RevWalk revWalk = new RevWalk(repository)) {
+			final RevCommit mergeCommit = findMergeCommit(revWalk, pendingConflicts.get().getMergeHead());
+			if (mergeCommit == null) {
+				// The merge is still in progress, or was abandoned; its conflicts are replaced when the next merge's are recorded
+				return 0;
+			}
+
+			int learnedCount = 0;
+			for (final Map.Entry<String, String> conflict : pendingConflicts.get().getConflictKeysByPath().entrySet()) {
+				final RecordedResolution resolution = getCommittedResolution(revWalk, conflict.getKey(), mergeCommit);
+				if (resolution == null) {
+					continue;
+				}
+				if (record) {
+					recordedResolutionStore.put(conflict.getValue(), resolution);
+				} else {
+					recordedResolutionStore.putInMemory(conflict.getValue(), resolution);
+				}
+				learnedCount++;
+			}
+			if (record) {
+				recordedResolutionStore.clearPendingConflicts();
+			}
+			LOGGER.debug("Learned {} conflict resolution(s) from merge commit {}", learnedCount, mergeCommit.getName());
+			return learnedCount;
+		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	@Override
-	public Iterable<RevCommit> getAllCommitsForPathInAllBranches(final String path, final String upstreamRemoteName) {
-		try (Git git = new Git(repository)) {
-			// Get all branches that start with "refs/remotes/" + upstreamRemoteName + "/"
-			String remoteBranchPrefix = "refs/remotes/" + upstreamRemoteName + "/";
-			List<AnyObjectId> upstreamRemoteBranchHeads = git.branchList()
-					.setListMode(ListBranchCommand.ListMode.REMOTE)
-					.call()
-					.stream()
-					.filter(ref -> ref.getName().startsWith(remoteBranchPrefix))
-					.map(ref -> (AnyObjectId) ref.getObjectId())
-					.collect(Collectors.toList());
+	/**
+	 * Finds the commit in the history of HEAD that merged the given commit.
+	 *
+	 * @param revWalk   the rev walk
+	 * @param mergeHead the id of the merged commit
+	 * @return the merge commit, or null if the given commit has not been merged into HEAD
+	 * @throws IOException if the history cannot be read
+	 */
+	private RevCommit findMergeCommit(final RevWalk revWalk, final ObjectId mergeHead) throws IOException {
+		final ObjectId head = repository.resolve(Constants.HEAD);
+		if (head == null || !revWalk.getObjectReader().has(mergeHead)) {
+			return null;
+		}
 
-			if (upstreamRemoteBranchHeads.isEmpty()) {
-				return Collections.emptyList(); // No matching branches
+		revWalk.setRetainBody(false);
+		revWalk.markStart(revWalk.parseCommit(head));
+		// The merge commit is not reachable from the commit it merged, so the walk can stop at the merged history
+		revWalk.markUninteresting(revWalk.parseCommit(mergeHead));
+		for (RevCommit commit = revWalk.next(); commit != null; commit = revWalk.next()) {
+			for (int parentIndex = 1; parentIndex < commit.getParentCount(); parentIndex++) {
+				if (commit.getParent(parentIndex).equals(mergeHead)) {
+					return commit;
+				}
 			}
+		}
+		return null;
+	}
 
-			LogCommand logCommand = git.log()
-					.addPath(path);
-			for (AnyObjectId branchHead : upstreamRemoteBranchHeads) {
-				logCommand.add(branchHead);
+	private RecordedResolution getCommittedResolution(final RevWalk revWalk, final String path, final RevCommit mergeCommit)
+			throws IOException {
+		try (TreeWalk treeWalk = TreeWalk.forPath(revWalk.getObjectReader(), path, mergeCommit.getTree())) {
+			if (treeWalk == null) {
+				return new RecordedResolution(null, null);
 			}
-			return logCommand.call();
-		} catch (final GitAPIException | IncorrectObjectTypeException | MissingObjectException e) {
+
+			final FileMode fileMode = treeWalk.getFileMode(0);
+			if (!FileMode.REGULAR_FILE.equals(fileMode) && !FileMode.EXECUTABLE_FILE.equals(fileMode)) {
+				// Symbolic links and submodules are not written by conflict resolution
+				return null;
+			}
+			return new RecordedResolution(treeWalk.getObjectId(0).name(),
+					new FilePermissions(true, true, FileMode.EXECUTABLE_FILE.equals(fileMode)));
+		}
+	}
+
+	@Override
+	public Optional<RecordedResolution> getRecordedResolution(final Change conflict) {
+		return recordedResolutionStore.get(conflict);
+	}
+
+	@Override
+	public List<RevCommit> getCommitsSinceBoundary(final Predicate<RevCommit> isBoundary) {
+		try {
+			return getCommitsSinceBoundary(repository.resolve(Constants.HEAD), isBoundary);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public List<RevCommit> getCommitsForBranchSinceBoundary(final Ref branch, final Predicate<RevCommit> isBoundary) {
+		return getCommitsSinceBoundary(branch.getObjectId(), isBoundary);
+	}
+
+	private List<RevCommit> getCommitsSinceBoundary(final ObjectId start, final Predicate<RevCommit> isBoundary) {
+		final List<RevCommit> commits = new ArrayList<>();
+		if (start == null) {
+			return commits;
+		}
+
+		try (RevWalk revWalk = new RevWalk(repository)) {
+			// Newest first, as by git log; unlike a RevWalk, a boundary commit stops the walk only along the paths leading through it
+			final PriorityQueue<RevCommit> pendingCommits =
+					new PriorityQueue<>(Comparator.comparingInt(RevCommit::getCommitTime).reversed());
+			final RevFlag queued = revWalk.newFlag("queued");
+			final RevCommit startCommit = revWalk.parseCommit(start);
+			startCommit.add(queued);
+			pendingCommits.add(startCommit);
+			while (!pendingCommits.isEmpty()) {
+				final RevCommit commit = pendingCommits.poll();
+				if (isBoundary.test(commit)) {
+					continue;
+				}
+				commits.add(commit);
+				for (final RevCommit parent : commit.getParents()) {
+					if (!parent.has(queued)) {
+						revWalk.parseHeaders(parent);
+						parent.add(queued);
+						pendingCommits.add(parent);
+					}
+				}
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		return commits;
+	}
+
+	@Override
+	public UpstreamBlobIndex getUpstreamBlobIndex(final String upstreamRemoteName) {
+		return upstreamBlobIndexes.computeIfAbsent(upstreamRemoteName, this::buildUpstreamBlobIndex);
+	}
+
+	private UpstreamBlobIndex buildUpstreamBlobIndex(final String upstreamRemoteName) {
+		try {
+			final Set<ObjectId> upstreamRemoteBranchHeads = repository.getRefDatabase()
+					.getRefsByPrefix(Constants.R_REMOTES + upstreamRemoteName + "/").stream()
+					.map(Ref::getObjectId)
+					.collect(Collectors.toSet());
+
+			return upstreamBlobIndexStore.load(upstreamRemoteName, upstreamRemoteBranchHeads);
+		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -294,6 +574,45 @@ public class GitClientImpl implements GitClient {
 		}
 	}
 
+	@Override
+	public Map<String, String> getObjectIdsAtHead(final Collection<String> paths) {
+		final Map<String, String> objectIds = new HashMap<>();
+		if (paths.isEmpty()) {
+			return objectIds;
+		}
+
+		// Only descend into the directories that contain a requested path, so that requested directories are not walked themselves
+		final Set<String> requestedPaths = new HashSet<>(paths);
+		final Set<String> parentDirectories = new HashSet<>();
+		for (final String path : paths) {
+			parentDirectories.addAll(RepositoryPaths.getParentDirectories(path));
+		}
+
+		try (RevWalk revWalk = new RevWalk(repository);
+			 TreeWalk treeWalk = new TreeWalk(revWalk.getObjectReader())) {
+			final ObjectId head = repository.resolve(Constants.HEAD);
+			if (head == null) {
+				return objectIds;
+			}
+
+			treeWalk.reset(revWalk.parseCommit(head).getTree());
+			treeWalk.setFilter(PathFilterGroup.createFromStrings(paths));
+			while (treeWalk.next()) {
+				final String path = treeWalk.getPathString();
+				if (requestedPaths.contains(path)) {
+					objectIds.put(path, treeWalk.getObjectId(0).name());
+				}
+				if (treeWalk.isSubtree() && parentDirectories.contains(path)) {
+					treeWalk.enterSubtree();
+				}
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		return objectIds;
+	}
+
 	/**
 	 * Cleanup: git reset --hard.
 	 */
@@ -312,14 +631,52 @@ public class GitClientImpl implements GitClient {
 		}
 	}
 
+	@Override
+	public Optional<Set<String>> getUpstreamChangedPaths(final Ref upstreamBranch) {
+		try (RevWalk revWalk = new RevWalk(repository);
+			 TreeWalk treeWalk = new TreeWalk(revWalk.getObjectReader())) {
+			final RevCommit upstreamCommit = revWalk.parseCommit(upstreamBranch.getObjectId());
+			RevCommit mergeBase = findMergeBase(revWalk, upstreamCommit, revWalk.parseCommit(repository.resolve(Constants.HEAD)));
+			if (upstreamCommit.equals(mergeBase)) {
+				// A merge without conflicts is committed straight away, so take the merge-base from the local side of that merge
+				final RevCommit mergeCommit = findMergeCommit(revWalk, upstreamCommit);
+				mergeBase = mergeCommit == null
+						? null
+						: findMergeBase(revWalk, upstreamCommit, revWalk.parseCommit(mergeCommit.getParent(0)));
+			}
+			if (mergeBase == null || mergeBase.equals(upstreamCommit)) {
+				return Optional.empty();
+			}
+
+			treeWalk.addTree(mergeBase.getTree());
+			treeWalk.addTree(upstreamCommit.getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+			final Set<String> changedPaths = new HashSet<>();
+			while (treeWalk.next()) {
+				changedPaths.add(treeWalk.getPathString());
+			}
+			return Optional.of(changedPaths);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public List<DiffEntry> getDiff(final Ref otherBranch) {
 		try (Git git = new Git(repository)) {
 
 			final AbstractTreeIterator newTreeParser = prepareTreeParser(otherBranch);
 
-			return git.diff().setNewTree(newTreeParser).call();
-		} catch (final GitAPIException e) {
+			// Compare the index with the branch tree, so that subtrees with matching tree ids are skipped without visiting their files.
+			// Only the list of changed entries is needed; formatting a patch for each would read and diff the contents of every one.
+			return git.diff()
+					.setOldTree(new DirCacheIterator(repository.readDirCache()))
+					.setNewTree(newTreeParser)
+					.setShowNameAndStatusOnly(true)
+					.call();
+		} catch (final GitAPIException | IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -345,6 +702,21 @@ public class GitClientImpl implements GitClient {
 		}
 	}
 
+	@Override
+	public void stageAll(final Collection<String> paths) {
+		if (paths.isEmpty()) {
+			return;
+		}
+
+		try (Git git = new Git(repository)) {
+			final AddCommand addCommand = git.add();
+			paths.forEach(addCommand::addFilepattern);
+			addCommand.call();
+		} catch (final GitAPIException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public void unstage(final String path) {
 		try (Git git = new Git(repository)) {
@@ -364,9 +736,15 @@ public class GitClientImpl implements GitClient {
 	}
 
 	@Override
-	public void delete(final String path) {
+	public void deleteAll(final Collection<String> paths) {
+		if (paths.isEmpty()) {
+			return;
+		}
+
 		try (Git git = new Git(repository)) {
-			git.rm().addFilepattern(path).call();
+			final RmCommand rmCommand = git.rm();
+			paths.forEach(rmCommand::addFilepattern);
+			rmCommand.call();
 		} catch (final GitAPIException e) {
 			throw new RuntimeException(e);
 		}
@@ -375,14 +753,87 @@ public class GitClientImpl implements GitClient {
 	@Override
 	public void writeBlobContents(final String hexSha, final OutputStream outputStream) {
 		final ObjectId objectId = ObjectId.fromString(hexSha);
+		final ObjectReader scopedObjectReader = scopedObjectReaders.get();
 		try {
-			final ObjectLoader loader = repository.open(objectId);
+			final ObjectLoader loader = scopedObjectReader == null ? repository.open(objectId) : scopedObjectReader.open(objectId);
 			loader.copyTo(outputStream);
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	@Override
+	public void withBlobReadScope(final Runnable task) {
+		if (scopedObjectReaders.get() != null) {
+			task.run();
+			return;
+		}
+
+		try (ObjectReader objectReader = repository.newObjectReader()) {
+			scopedObjectReaders.set(objectReader);
+			task.run();
+		} finally {
+			scopedObjectReaders.remove();
+		}
+	}
+
+	@Override
+	public List<List<String>> groupByPack(final Collection<String> hexShas) {
+		final List<String> distinctHexShas = hexShas.stream()
+				.filter(hexSha -> hexSha != null && ObjectId.isId(hexSha))
+				.distinct()
+				.collect(Collectors.toList());
+		try {
+			return PackLocations.groupByPack(repository, distinctHexShas);
+		} catch (final LinkageError | RuntimeException e) {
+			// Pack locations are read through JGit's internal API, which may not match the JGit version on the classpath
+			LOGGER.debug("Could not read pack locations; treating every object as unpacked", e);
+			return Collections.singletonList(distinctHexShas);
+		}
+	}
+
+	@Override
+	public boolean workingFileMatchesBlob(final String path, final String hexSha) {
+		final Path file = getWorkingDir().toPath().resolve(path);
+		if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+			return false;
+		}
+
+		final ObjectId blobId = ObjectId.fromString(hexSha);
+		try (ObjectReader reader = repository.newObjectReader()) {
+			final long fileSize = Files.size(file);
+			if (fileSize != reader.getObjectSize(blobId, Constants.OBJ_BLOB)) {
+				return false;
+			}
+
+			try (InputStream inputStream = Files.newInputStream(file)) {
+				return blobId.equals(new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, fileSize, inputStream));
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public Map<String, Long> getBlobSizes(final Collection<String> hexShas) {
+		final Map<String, Long> blobSizes = new HashMap<>();
+		try (ObjectReader reader = repository.newObjectReader()) {
+			for (final String hexSha : hexShas) {
+				if (hexSha == null || !ObjectId.isId(hexSha) || blobSizes.containsKey(hexSha)) {
+					continue;
+				}
+				try {
+					blobSizes.put(hexSha, reader.getObjectSize(ObjectId.fromString(hexSha), Constants.OBJ_BLOB));
+				} catch (final MissingObjectException e) {
+					LOGGER.debug("Could not find object {}", hexSha);
+				}
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		return blobSizes;
+	}
+
 	@Override
 	public Optional<String> getContentHashOfPathAtCommit(final String path, final RevCommit commit) {
 		try {
@@ -406,76 +857,73 @@ public class GitClientImpl implements GitClient {
 	}
 
 	@Override
-	public String getContentHash(final RevCommit commit) {
-		try (Git git = new Git(repository)) {
+	public Map<RevCommit, String> getContentHashes(final Collection<RevCommit> commits) {
+		final List<RevCommit> commitList = new ArrayList<>(commits);
+		final Map<RevCommit, String> contentHashes = new ConcurrentHashMap<>();
+		final int workerCount = Math.min(commitList.size(), Runtime.getRuntime().availableProcessors());
+
+		// Object readers are not thread-safe, so each worker reads through its own, and takes every workerCount-th commit
+		IntStream.range(0, workerCount).parallel().forEach(worker -> {
+			try (ObjectReader reader = repository.newObjectReader();
+				 RevWalk revWalk = new RevWalk(reader);
+				 TreeWalk treeWalk = new TreeWalk(reader)) {
+				for (int i = worker; i < commitList.size(); i += workerCount) {
+					final RevCommit commit = commitList.get(i);
+					final String contentHash = commitFingerprintCache.computeIfAbsent(commit,
+							uncachedCommit -> computeContentHash(revWalk, treeWalk, uncachedCommit));
+					contentHashes.put(commit, contentHash);
+				}
+			}
+		});
+
+		return contentHashes;
+	}
+
+	/**
+	 * Computes a SHA-256 hash of the contents of the specified commit.
+	 *
+	 * @param revWalk  the walk used to parse the commit and its parent
+	 * @param treeWalk the walk used to compare the commit with its parent; reset before use
+	 * @param commit   the commit to hash
+	 * @return a hash of the commit contents
+	 */
+	private String computeContentHash(final RevWalk revWalk, final TreeWalk treeWalk, final RevCommit commit) {
+		try {
 			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			final RevCommit parsedCommit = revWalk.parseCommit(commit);
+			treeWalk.reset();
+			treeWalk.setFilter(TreeFilter.ALL);
+			treeWalk.setRecursive(true);
 
-			// For the initial commit or if something goes wrong with getting parent, fall back to hashing the entire tree
-			if (commit.getParentCount() == 0) {
-				try (TreeWalk treeWalk = new TreeWalk(repository)) {
-					treeWalk.addTree(commit.getTree());
-					treeWalk.setRecursive(true);
+			// For the initial commit, fall back to hashing the entire tree
+			if (parsedCommit.getParentCount() == 0) {
+				treeWalk.addTree(parsedCommit.getTree());
 
-					while (treeWalk.next()) {
-						String path = treeWalk.getPathString();
-						ObjectId objectId = treeWalk.getObjectId(0);
+				while (treeWalk.next()) {
+					String path = treeWalk.getPathString();
+					ObjectId objectId = treeWalk.getObjectId(0);
 
-						digest.update(path.getBytes(StandardCharsets.UTF_8));
-						digest.update(objectId.name().getBytes(StandardCharsets.UTF_8));
-					}
+					digest.update(path.getBytes(StandardCharsets.UTF_8));
+					digest.update(objectId.name().getBytes(StandardCharsets.UTF_8));
 				}
 			} else {
-				// For normal commits, hash the diff between this commit and its parent
-				RevCommit parent = commit.getParent(0);
-				List<DiffEntry> diffs = git.diff()
-						.setOldTree(prepareTreeParser(parent))
-						.setNewTree(prepareTreeParser(commit))
-						.call();
-
-				for (DiffEntry diff : diffs) {
-					String changeType = diff.getChangeType().name();
-					String oldPath = diff.getOldPath();
-					String newPath = diff.getNewPath();
-
-					digest.update(changeType.getBytes(StandardCharsets.UTF_8));
-					if (oldPath != null) {
-						digest.update(oldPath.getBytes(StandardCharsets.UTF_8));
-					}
-					if (newPath != null) {
-						digest.update(newPath.getBytes(StandardCharsets.UTF_8));
-					}
-
-					// Include the content of the files in the diff
-					try (ObjectReader reader = repository.newObjectReader()) {
-						// For modified/added files, include the new content
-						AbbreviatedObjectId newIdAbbr = diff.getNewId();
-						if (newIdAbbr != null && !newIdAbbr.equals(ObjectId.zeroId())) {
-							try {
-								ObjectId newId = repository.resolve(newIdAbbr.name());
-								if (newId != null) {
-									ObjectLoader newLoader = reader.open(newId);
-									digest.update(newLoader.getBytes());
-								}
-							} catch (MissingObjectException | LargeObjectException e) {
-								// Skip if the object is missing or too large
-							}
-						}
-						// For modified/deleted files, include the old content
-						AbbreviatedObjectId oldIdAbbr = diff.getOldId();
-						if (oldIdAbbr != null && !oldIdAbbr.equals(ObjectId.zeroId())) {
-							try {
-								ObjectId oldId = repository.resolve(oldIdAbbr.name());
-								if (oldId != null) {
-									ObjectLoader oldLoader = reader.open(oldId);
-									digest.update(oldLoader.getBytes());
-								}
-							} catch (MissingObjectException | LargeObjectException e) {
-								// Skip if the object is missing or too large
-							}
-						}
-					} catch (IOException e) {
-						throw new RuntimeException("Failed to read file content for hashing", e);
-					}
+				// For normal commits, hash the diff between this commit and its parent. Blob ids identify the file contents, so the
+				// contents themselves never need to be read.
+				final RevCommit parent = revWalk.parseCommit(parsedCommit.getParent(0));
+				treeWalk.addTree(parent.getTree());
+				treeWalk.addTree(parsedCommit.getTree());
+				treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+				final byte[] objectIdBytes = new byte[Constants.OBJECT_ID_LENGTH];
+				for (DiffEntry diff : DiffEntry.scan(treeWalk)) {
+					digest.update(diff.getChangeType().name().getBytes(StandardCharsets.UTF_8));
+					digest.update(diff.getOldPath().getBytes(StandardCharsets.UTF_8));
+					digest.update(diff.getNewPath().getBytes(StandardCharsets.UTF_8));
+
+					diff.getOldId().toObjectId().copyRawTo(objectIdBytes, 0);
+					digest.update(objectIdBytes);
+					diff.getNewId().toObjectId().copyRawTo(objectIdBytes, 0);
+					digest.update(objectIdBytes);
 				}
 			}
 
@@ -486,7 +934,7 @@ public class GitClientImpl implements GitClient {
 			}
 
 			return hexString.toString();
-		} catch (final IOException | NoSuchAlgorithmException | GitAPIException ex) {
+		} catch (final IOException | NoSuchAlgorithmException ex) {
 			throw new RuntimeException(ex);
 		}
 	}
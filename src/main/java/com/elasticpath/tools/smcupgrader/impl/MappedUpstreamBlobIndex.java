@@ -0,0 +1,306 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import com.elasticpath.tools.smcupgrader.UpstreamBlobIndex;
+
+/**
+ * {@link UpstreamBlobIndex} backed by a memory-mapped file, so that it can be reused between runs without being loaded into the heap.
+ *
+ * <p>The file contains, in order: a header with the ids of the upstream ref tips the index covers; a table of paths sorted by their
+ * UTF-8 bytes, each pointing at a run of blob ids; the sorted 20-byte blob ids; and the UTF-8 bytes of the paths. Both the path table and
+ * each run of blob ids are binary searched in place. Directories are stored like files, under the keys described by
+ * {@link UpstreamBlobIndexImpl}, with their tree ids in place of blob ids.</p>
+ */
+public final class MappedUpstreamBlobIndex implements UpstreamBlobIndex {
+	private static final int MAGIC = 0x534d4342;
+	private static final int FORMAT_VERSION = 2;
+	private static final int INT_SIZE = Integer.BYTES;
+	private static final int PATH_ENTRY_SIZE = 4 * INT_SIZE;
+	private static final int PATH_OFFSET_FIELD = 0;
+	private static final int PATH_LENGTH_FIELD = INT_SIZE;
+	private static final int FIRST_BLOB_FIELD = 2 * INT_SIZE;
+	private static final int BLOB_COUNT_FIELD = 3 * INT_SIZE;
+	private static final int UNSIGNED_BYTE_MASK = 0xff;
+	private static final int HEADER_SIZE = 3 * INT_SIZE;
+
+	private final ByteBuffer buffer;
+	private final Set<ObjectId> tips;
+	private final int pathCount;
+	private final int pathTableOffset;
+	private final int blobIdsOffset;
+	private final int pathBytesOffset;
+
+	private MappedUpstreamBlobIndex(final ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+
+		int offset = 0;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(offset) != MAGIC || buffer.getInt(offset + INT_SIZE) != FORMAT_VERSION) {
+			throw new IOException("Unrecognized upstream blob index format");
+		}
+		offset += 2 * INT_SIZE;
+
+		final int tipCount = buffer.getInt(offset);
+		offset += INT_SIZE;
+		tips = new HashSet<>();
+		for (int i = 0; i < tipCount; i++) {
+			tips.add(readObjectId(offset));
+			offset += Constants.OBJECT_ID_LENGTH;
+		}
+
+		pathCount = buffer.getInt(offset);
+		offset += INT_SIZE;
+		pathTableOffset = offset;
+		offset += pathCount * PATH_ENTRY_SIZE;
+
+		final int blobCount = buffer.getInt(offset);
+		offset += INT_SIZE;
+		blobIdsOffset = offset;
+		offset += blobCount * Constants.OBJECT_ID_LENGTH;
+
+		final int pathBytesLength = buffer.getInt(offset);
+		offset += INT_SIZE;
+		pathBytesOffset = offset;
+		if (pathBytesOffset + pathBytesLength != buffer.limit()) {
+			throw new IOException("Upstream blob index is truncated");
+		}
+	}
+
+	/**
+	 * Memory-maps the index stored in the given file.
+	 *
+	 * @param file the index file
+	 * @return the index
+	 * @throws IOException if the file cannot be read or is not a valid index
+	 */
+	public static MappedUpstreamBlobIndex map(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new MappedUpstreamBlobIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads the index stored in the given file onto the heap, without keeping a mapping of the file open.
+	 *
+	 * @param file the index file
+	 * @return the index
+	 * @throws IOException if the file cannot be read or is not a valid index
+	 */
+	public static MappedUpstreamBlobIndex read(final Path file) throws IOException {
+		return new MappedUpstreamBlobIndex(ByteBuffer.wrap(Files.readAllBytes(file)));
+	}
+
+	/**
+	 * Reads the upstream ref tips covered by the index stored in the given file, without reading the rest of the file.
+	 *
+	 * @param file the index file
+	 * @return the ids of the ref tips
+	 * @throws IOException if the file cannot be read or is not a valid index
+	 */
+	public static Set<ObjectId> readTips(final Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				throw new IOException("Unrecognized upstream blob index format");
+			}
+
+			final int tipCount = in.readInt();
+			final Set<ObjectId> tips = new HashSet<>();
+			final byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			for (int i = 0; i < tipCount; i++) {
+				in.readFully(raw);
+				tips.add(ObjectId.fromRaw(raw));
+			}
+			return tips;
+		}
+	}
+
+	/**
+	 * Writes the given index to a file.
+	 *
+	 * @param file  the index file
+	 * @param tips  the upstream ref tips covered by the index
+	 * @param index the index contents
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(final Path file, final Collection<ObjectId> tips, final UpstreamBlobIndexImpl index) throws IOException {
+		final Map<String, Set<ObjectId>> blobIdsByPath = index.getBlobIdsByPath();
+		final List<byte[]> paths = new ArrayList<>(blobIdsByPath.size());
+		for (final String path : blobIdsByPath.keySet()) {
+			paths.add(path.getBytes(StandardCharsets.UTF_8));
+		}
+		paths.sort(Arrays::compareUnsigned);
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(tips.size());
+			for (final ObjectId tip : tips) {
+				tip.copyRawTo(out);
+			}
+
+			out.writeInt(paths.size());
+			int pathOffset = 0;
+			int firstBlob = 0;
+			for (final byte[] path : paths) {
+				final int blobCount = blobIdsByPath.get(new String(path, StandardCharsets.UTF_8)).size();
+				out.writeInt(pathOffset);
+				out.writeInt(path.length);
+				out.writeInt(firstBlob);
+				out.writeInt(blobCount);
+				pathOffset += path.length;
+				firstBlob += blobCount;
+			}
+
+			out.writeInt(firstBlob);
+			for (final byte[] path : paths) {
+				final ObjectId[] blobIds = blobIdsByPath.get(new String(path, StandardCharsets.UTF_8)).toArray(new ObjectId[0]);
+				Arrays.sort(blobIds);
+				for (final ObjectId blobId : blobIds) {
+					blobId.copyRawTo(out);
+				}
+			}
+
+			out.writeInt(pathOffset);
+			for (final byte[] path : paths) {
+				out.write(path);
+			}
+		}
+	}
+
+	/**
+	 * Returns the upstream ref tips covered by this index.
+	 *
+	 * @return the ids of the ref tips
+	 */
+	public Set<ObjectId> getTips() {
+		return tips;
+	}
+
+	/**
+	 * Copies the contents of this index into the given in-memory index.
+	 *
+	 * @param target the index to copy into
+	 */
+	void copyTo(final UpstreamBlobIndexImpl target) {
+		for (int pathIndex = 0; pathIndex < pathCount; pathIndex++) {
+			final int entry = pathTableOffset + pathIndex * PATH_ENTRY_SIZE;
+			final byte[] pathBytes = new byte[buffer.getInt(entry + PATH_LENGTH_FIELD)];
+			buffer.get(pathBytesOffset + buffer.getInt(entry + PATH_OFFSET_FIELD), pathBytes);
+			final String path = new String(pathBytes, StandardCharsets.UTF_8);
+
+			final int firstBlob = buffer.getInt(entry + FIRST_BLOB_FIELD);
+			final int blobCount = buffer.getInt(entry + BLOB_COUNT_FIELD);
+			for (int blob = firstBlob; blob < firstBlob + blobCount; blob++) {
+				target.add(path, readObjectId(blobIdsOffset + blob * Constants.OBJECT_ID_LENGTH));
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(final String path, final String blobSha) {
+		if (blobSha == null || !ObjectId.isId(blobSha)) {
+			return false;
+		}
+
+		final int entry = findPathEntry(path.getBytes(StandardCharsets.UTF_8));
+		if (entry < 0) {
+			return false;
+		}
+
+		final byte[] blobId = new byte[Constants.OBJECT_ID_LENGTH];
+		ObjectId.fromString(blobSha).copyRawTo(blobId, 0);
+
+		int low = buffer.getInt(entry + FIRST_BLOB_FIELD);
+		int high = low + buffer.getInt(entry + BLOB_COUNT_FIELD) - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int comparison = compare(blobIdsOffset + mid * Constants.OBJECT_ID_LENGTH, Constants.OBJECT_ID_LENGTH, blobId);
+			if (comparison < 0) {
+				low = mid + 1;
+			} else if (comparison > 0) {
+				high = mid - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean containsTree(final String directoryPath, final String treeSha) {
+		return contains(directoryPath + UpstreamBlobIndexImpl.TREE_PATH_SUFFIX, treeSha);
+	}
+
+	@Override
+	public int getRevisionCount(final String path) {
+		final int entry = findPathEntry(path.getBytes(StandardCharsets.UTF_8));
+		if (entry < 0) {
+			return 0;
+		}
+		return buffer.getInt(entry + BLOB_COUNT_FIELD);
+	}
+
+	private int findPathEntry(final byte[] path) {
+		int low = 0;
+		int high = pathCount - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int entry = pathTableOffset + mid * PATH_ENTRY_SIZE;
+			final int comparison = compare(pathBytesOffset + buffer.getInt(entry + PATH_OFFSET_FIELD),
+					buffer.getInt(entry + PATH_LENGTH_FIELD), path);
+			if (comparison < 0) {
+				low = mid + 1;
+			} else if (comparison > 0) {
+				high = mid - 1;
+			} else {
+				return entry;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compares the bytes at the given position in the buffer with the given bytes, treating both as unsigned.
+	 *
+	 * @param position the position in the buffer
+	 * @param length   the number of bytes in the buffer to compare
+	 * @param other    the bytes to compare with
+	 * @return a negative number, zero, or a positive number as the bytes in the buffer sort before, equal, or after the other bytes
+	 */
+	private int compare(final int position, final int length, final byte[] other) {
+		final int commonLength = Math.min(length, other.length);
+		for (int i = 0; i < commonLength; i++) {
+			final int comparison = (buffer.get(position + i) & UNSIGNED_BYTE_MASK) - (other[i] & UNSIGNED_BYTE_MASK);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return length - other.length;
+	}
+
+	private ObjectId readObjectId(final int position) {
+		final byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+		buffer.get(position, raw);
+		return ObjectId.fromRaw(raw);
+	}
+}
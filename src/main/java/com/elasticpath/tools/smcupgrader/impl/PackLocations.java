@@ -0,0 +1,85 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Orders objects by their location in the pack files of a repository.
+ *
+ * <p>JGit exposes pack offsets only through its internal file storage API, which may change between JGit releases without notice. This
+ * is the only class that uses it, so that a JGit upgrade breaking it is contained here.</p>
+ */
+public final class PackLocations {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PackLocations.class);
+
+	private PackLocations() {
+		// Utility class
+	}
+
+	/**
+	 * Groups the given SHAs by the pack file holding their objects, pack by pack, each group sorted by the offset of its objects within the
+	 * pack. The groups of packed objects are followed by one group, possibly empty, holding the objects outside any pack in their given
+	 * order. Every object is outside any pack if the repository does not store its objects in pack files on disk.
+	 *
+	 * @param repository the repository
+	 * @param hexShas    the SHAs of objects in the repository
+	 * @return the groups of packed objects, followed by the group of other objects
+	 */
+	public static List<List<String>> groupByPack(final Repository repository, final List<String> hexShas) {
+		final List<List<String>> groups = new ArrayList<>();
+		if (!(repository.getObjectDatabase() instanceof ObjectDirectory)) {
+			groups.add(new ArrayList<>(hexShas));
+			return groups;
+		}
+
+		final List<Pack> packs = new ArrayList<>(((ObjectDirectory) repository.getObjectDatabase()).getPacks());
+		final List<List<String>> packGroups = new ArrayList<>();
+		for (int packIndex = 0; packIndex < packs.size(); packIndex++) {
+			packGroups.add(new ArrayList<>());
+		}
+		final List<String> unpackedHexShas = new ArrayList<>();
+		final Map<String, Long> offsets = new HashMap<>();
+		for (final String hexSha : hexShas) {
+			final ObjectId objectId = ObjectId.fromString(hexSha);
+			List<String> group = unpackedHexShas;
+			for (int packIndex = 0; packIndex < packs.size(); packIndex++) {
+				final long offset = findOffset(packs.get(packIndex), objectId);
+				if (offset >= 0) {
+					offsets.put(hexSha, offset);
+					group = packGroups.get(packIndex);
+					break;
+				}
+			}
+			group.add(hexSha);
+		}
+
+		for (final List<String> packGroup : packGroups) {
+			if (!packGroup.isEmpty()) {
+				packGroup.sort(Comparator.comparingLong(offsets::get));
+				groups.add(packGroup);
+			}
+		}
+		groups.add(unpackedHexShas);
+		return groups;
+	}
+
+	private static long findOffset(final Pack pack, final ObjectId objectId) {
+		try {
+			return pack.getIndex().findOffset(objectId);
+		} catch (final IOException e) {
+			LOGGER.debug("Could not read the index of pack {}", pack.getPackName(), e);
+			return -1;
+		}
+	}
+}
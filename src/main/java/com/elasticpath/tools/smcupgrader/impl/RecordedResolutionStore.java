@@ -0,0 +1,258 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elasticpath.tools.smcupgrader.Change;
+import com.elasticpath.tools.smcupgrader.FilePermissions;
+import com.elasticpath.tools.smcupgrader.RecordedResolution;
+
+/**
+ * Records how merge conflicts were resolved, so that the same conflict can be resolved the same way when it recurs in a later merge, in
+ * the manner of {@code git rerere}.
+ *
+ * <p>A conflict is identified by the base, ours and theirs blobs of its path. The conflicts of the merge in progress are kept as
+ * pending, together with the id of the commit being merged; once that merge has been committed, the committed contents of each pending
+ * path are recorded as the resolution of its conflict. Both files are UTF-8 text with tab-separated fields, in which a {@code -} stands
+ * for an absent blob.</p>
+ */
+public class RecordedResolutionStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RecordedResolutionStore.class);
+
+	private static final String RESOLUTIONS_FILE_NAME = "recorded-resolutions-v1.tsv";
+	private static final String PENDING_CONFLICTS_FILE_NAME = "pending-conflicts-v1.tsv";
+	private static final String FIELD_SEPARATOR = "\t";
+	private static final String ABSENT = "-";
+	private static final String EXECUTABLE = "x";
+	private static final int CONFLICT_FIELD_COUNT = 3;
+	private static final int RESOLUTION_FIELD_COUNT = CONFLICT_FIELD_COUNT + 2;
+	private static final int PENDING_CONFLICT_FIELD_COUNT = CONFLICT_FIELD_COUNT + 1;
+
+	private final Path resolutionsFile;
+
+	private final Path pendingConflictsFile;
+
+	private volatile Map<String, RecordedResolution> resolutions;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param storeDirectory the directory in which the files are stored
+	 */
+	public RecordedResolutionStore(final Path storeDirectory) {
+		this.resolutionsFile = storeDirectory.resolve(RESOLUTIONS_FILE_NAME);
+		this.pendingConflictsFile = storeDirectory.resolve(PENDING_CONFLICTS_FILE_NAME);
+	}
+
+	/**
+	 * Returns the recorded resolution of the given conflict.
+	 *
+	 * @param conflict the conflict
+	 * @return the recorded resolution, or empty if the conflict has not been resolved before
+	 */
+	public Optional<RecordedResolution> get(final Change conflict) {
+		return Optional.ofNullable(getResolutions().get(toConflictKey(conflict)));
+	}
+
+	/**
+	 * Records the resolution of a conflict, replacing any earlier resolution of the same conflict.
+	 *
+	 * @param conflictKey the key of the conflict, as returned by {@link PendingConflicts#getConflictKeysByPath()}
+	 * @param resolution  the resolution
+	 */
+	public synchronized void put(final String conflictKey, final RecordedResolution resolution) {
+		if (resolution.equals(getResolutions().put(conflictKey, resolution))) {
+			return;
+		}
+
+		final String line = conflictKey + FIELD_SEPARATOR + orAbsent(resolution.getResolvedSHA()) + FIELD_SEPARATOR
+				+ toString(resolution.getResolvedFilePermissions()) + System.lineSeparator();
+		try {
+			Files.createDirectories(resolutionsFile.getParent());
+			Files.write(resolutionsFile, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (final IOException e) {
+			LOGGER.warn("Could not record conflict resolution in {}: {}", resolutionsFile, e.getMessage());
+		}
+	}
+
+	/**
+	 * Remembers the resolution of a conflict until this store is discarded, replacing any earlier resolution of the same conflict, without
+	 * recording it for later runs.
+	 *
+	 * @param conflictKey the key of the conflict, as returned by {@link PendingConflicts#getConflictKeysByPath()}
+	 * @param resolution  the resolution
+	 */
+	public void putInMemory(final String conflictKey, final RecordedResolution resolution) {
+		getResolutions().put(conflictKey, resolution);
+	}
+
+	/**
+	 * Replaces the pending conflicts with the given conflicts of the merge in progress.
+	 *
+	 * @param mergeHead the id of the commit being merged
+	 * @param conflicts the conflicts
+	 */
+	public synchronized void setPendingConflicts(final ObjectId mergeHead, final Collection<Change> conflicts) {
+		try {
+			Files.createDirectories(pendingConflictsFile.getParent());
+			try (BufferedWriter writer = Files.newBufferedWriter(pendingConflictsFile, StandardCharsets.UTF_8)) {
+				writer.write(mergeHead.name());
+				writer.newLine();
+				for (final Change conflict : conflicts) {
+					writer.write(toConflictKey(conflict) + FIELD_SEPARATOR + conflict.getPath());
+					writer.newLine();
+				}
+			}
+		} catch (final IOException e) {
+			LOGGER.warn("Could not record pending conflicts in {}: {}", pendingConflictsFile, e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the pending conflicts.
+	 *
+	 * @return the pending conflicts, or empty if there are none
+	 */
+	public synchronized Optional<PendingConflicts> getPendingConflicts() {
+		if (!Files.isRegularFile(pendingConflictsFile)) {
+			return Optional.empty();
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(pendingConflictsFile, StandardCharsets.UTF_8)) {
+			final String mergeHead = reader.readLine();
+			if (mergeHead == null || !ObjectId.isId(mergeHead)) {
+				return Optional.empty();
+			}
+
+			final Map<String, String> conflictKeysByPath = new ConcurrentHashMap<>();
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				final String[] fields = line.split(FIELD_SEPARATOR, PENDING_CONFLICT_FIELD_COUNT);
+				if (fields.length == PENDING_CONFLICT_FIELD_COUNT) {
+					conflictKeysByPath.put(fields[CONFLICT_FIELD_COUNT],
+							String.join(FIELD_SEPARATOR, fields[0], fields[1], fields[2]));
+				}
+			}
+			return Optional.of(new PendingConflicts(ObjectId.fromString(mergeHead), conflictKeysByPath));
+		} catch (final IOException e) {
+			LOGGER.debug("Ignoring unreadable pending conflicts {}", pendingConflictsFile, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Discards the pending conflicts.
+	 */
+	public synchronized void clearPendingConflicts() {
+		try {
+			Files.deleteIfExists(pendingConflictsFile);
+		} catch (final IOException e) {
+			LOGGER.debug("Could not delete pending conflicts {}", pendingConflictsFile, e);
+		}
+	}
+
+	private Map<String, RecordedResolution> getResolutions() {
+		Map<String, RecordedResolution> result = resolutions;
+		if (result == null) {
+			synchronized (this) {
+				result = resolutions;
+				if (result == null) {
+					result = load();
+					resolutions = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private Map<String, RecordedResolution> load() {
+		final Map<String, RecordedResolution> loadedResolutions = new ConcurrentHashMap<>();
+		if (!Files.isRegularFile(resolutionsFile)) {
+			return loadedResolutions;
+		}
+
+		try {
+			// Later lines replace earlier resolutions of the same conflict
+			for (final String line : Files.readAllLines(resolutionsFile, StandardCharsets.UTF_8)) {
+				final String[] fields = line.split(FIELD_SEPARATOR);
+				if (fields.length == RESOLUTION_FIELD_COUNT) {
+					final String resolvedSHA = ABSENT.equals(fields[CONFLICT_FIELD_COUNT]) ? null : fields[CONFLICT_FIELD_COUNT];
+					final FilePermissions resolvedFilePermissions = resolvedSHA == null
+							? null
+							: toFilePermissions(fields[CONFLICT_FIELD_COUNT + 1]);
+					loadedResolutions.put(String.join(FIELD_SEPARATOR, fields[0], fields[1], fields[2]),
+							new RecordedResolution(resolvedSHA, resolvedFilePermissions));
+				}
+			}
+			LOGGER.debug("Loaded {} recorded conflict resolution(s) from {}", loadedResolutions.size(), resolutionsFile);
+		} catch (final IOException e) {
+			LOGGER.debug("Ignoring unreadable recorded conflict resolutions {}", resolutionsFile, e);
+		}
+		return loadedResolutions;
+	}
+
+	private static String toConflictKey(final Change conflict) {
+		return String.join(FIELD_SEPARATOR, orAbsent(conflict.getBaseVersionSHA()), orAbsent(conflict.getOurVersionSHA()),
+				orAbsent(conflict.getTheirVersionSHA()));
+	}
+
+	private static String orAbsent(final String value) {
+		return value == null ? ABSENT : value;
+	}
+
+	private static String toString(final FilePermissions filePermissions) {
+		if (filePermissions == null) {
+			return ABSENT;
+		}
+		return filePermissions.isExecutable() ? EXECUTABLE : ABSENT;
+	}
+
+	private static FilePermissions toFilePermissions(final String value) {
+		return new FilePermissions(true, true, EXECUTABLE.equals(value));
+	}
+
+	/**
+	 * The conflicts of a merge that had not been committed when they were recorded.
+	 */
+	public static final class PendingConflicts {
+		private final ObjectId mergeHead;
+
+		private final Map<String, String> conflictKeysByPath;
+
+		private PendingConflicts(final ObjectId mergeHead, final Map<String, String> conflictKeysByPath) {
+			this.mergeHead = mergeHead;
+			this.conflictKeysByPath = Collections.unmodifiableMap(conflictKeysByPath);
+		}
+
+		/**
+		 * Returns the id of the commit that was being merged.
+		 *
+		 * @return the commit id
+		 */
+		public ObjectId getMergeHead() {
+			return mergeHead;
+		}
+
+		/**
+		 * Returns the key of the conflict at each path.
+		 *
+		 * @return a map of each path to the key of its conflict
+		 */
+		public Map<String, String> getConflictKeysByPath() {
+			return conflictKeysByPath;
+		}
+	}
+}
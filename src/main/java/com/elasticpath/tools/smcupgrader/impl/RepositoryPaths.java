@@ -0,0 +1,27 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility methods for paths relative to the root of a git repository, which are separated by forward slashes on every platform.
+ */
+public final class RepositoryPaths {
+	private RepositoryPaths() {
+		// Utility class
+	}
+
+	/**
+	 * Returns the directories containing the given path, outermost first.
+	 *
+	 * @param path the path of a file, relative to the git root
+	 * @return the containing directories, excluding the root
+	 */
+	public static List<String> getParentDirectories(final String path) {
+		final List<String> parentDirectories = new ArrayList<>();
+		for (int separator = path.indexOf('/'); separator > 0; separator = path.indexOf('/', separator + 1)) {
+			parentDirectories.add(path.substring(0, separator));
+		}
+		return parentDirectories;
+	}
+}
@@ -0,0 +1,151 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.elasticpath.tools.smcupgrader.UpstreamBlobIndex;
+
+/**
+ * In-memory {@link UpstreamBlobIndex}, mapping each path to the set of blob ids that have existed at that path. The tree ids that have
+ * existed at each directory are mapped from the directory path followed by {@link #TREE_PATH_SUFFIX}, which no file path ends with.
+ */
+public class UpstreamBlobIndexImpl implements UpstreamBlobIndex {
+	/**
+	 * Appended to a directory path to form the key of the tree ids that have existed at that directory.
+	 */
+	static final String TREE_PATH_SUFFIX = "/";
+
+	private final Map<String, Set<ObjectId>> blobIdsByPath = new HashMap<>();
+
+	/**
+	 * Builds an index covering every commit reachable from the given heads, in a single walk of the history. Each commit is compared
+	 * against its parents, so only the blobs introduced by that commit are visited.
+	 *
+	 * @param repository the repository
+	 * @param heads      the commits from which to walk the history
+	 * @return the index
+	 * @throws IOException if the history cannot be read
+	 */
+	public static UpstreamBlobIndexImpl build(final Repository repository, final Collection<? extends AnyObjectId> heads) throws IOException {
+		final UpstreamBlobIndexImpl index = new UpstreamBlobIndexImpl();
+		index.addHistory(repository, heads, Collections.emptySet());
+		return index;
+	}
+
+	/**
+	 * Adds the blobs and trees introduced by every commit reachable from the given heads, but not from any of the given already-indexed commits.
+	 * Already-indexed commits that no longer exist in the repository are ignored.
+	 *
+	 * @param repository the repository
+	 * @param heads      the commits from which to walk the history
+	 * @param indexed    the commits whose history is already present in this index
+	 * @return the number of commits walked
+	 * @throws IOException if the history cannot be read
+	 */
+	int addHistory(final Repository repository, final Collection<? extends AnyObjectId> heads, final Collection<? extends AnyObjectId> indexed)
+			throws IOException {
+		int commitCount = 0;
+
+		try (ObjectReader reader = repository.newObjectReader();
+			 RevWalk revWalk = new RevWalk(reader);
+			 TreeWalk treeWalk = new TreeWalk(reader)) {
+			revWalk.setRetainBody(false);
+			for (final AnyObjectId head : heads) {
+				revWalk.markStart(revWalk.parseCommit(head));
+			}
+			for (final AnyObjectId indexedCommit : indexed) {
+				if (reader.has(indexedCommit)) {
+					revWalk.markUninteresting(revWalk.parseCommit(indexedCommit));
+				}
+			}
+
+			// Visit each changed subtree after its contents, so that directories are recorded as well as files
+			treeWalk.setRecursive(true);
+			treeWalk.setPostOrderTraversal(true);
+			for (RevCommit commit = revWalk.next(); commit != null; commit = revWalk.next()) {
+				treeWalk.reset(commit.getTree());
+				for (final RevCommit parent : commit.getParents()) {
+					treeWalk.addTree(parent.getTree());
+				}
+				treeWalk.setFilter(commit.getParentCount() == 0 ? TreeFilter.ALL : TreeFilter.ANY_DIFF);
+
+				while (treeWalk.next()) {
+					// Entries missing from this commit were deleted by it, and have no contents to record
+					if (treeWalk.getRawMode(0) == 0) {
+						continue;
+					}
+					if (treeWalk.getFileMode(0) == FileMode.TREE) {
+						add(treeWalk.getPathString() + TREE_PATH_SUFFIX, treeWalk.getObjectId(0));
+					} else {
+						add(treeWalk.getPathString(), treeWalk.getObjectId(0));
+					}
+				}
+				commitCount++;
+			}
+		}
+
+		return commitCount;
+	}
+
+	/**
+	 * Records that the given blob has existed at the given path.
+	 *
+	 * @param path   the path
+	 * @param blobId the blob id
+	 */
+	void add(final String path, final ObjectId blobId) {
+		blobIdsByPath.computeIfAbsent(path, key -> new HashSet<>()).add(blobId);
+	}
+
+	/**
+	 * Returns the blob ids that have existed at the given path.
+	 *
+	 * @param path the path
+	 * @return the set of blob ids, empty if the path has never existed upstream
+	 */
+	Set<ObjectId> getBlobIds(final String path) {
+		return blobIdsByPath.getOrDefault(path, Collections.emptySet());
+	}
+
+	/**
+	 * Returns the mapping of each path to the blob ids that have existed at that path.
+	 *
+	 * @return the mapping
+	 */
+	Map<String, Set<ObjectId>> getBlobIdsByPath() {
+		return blobIdsByPath;
+	}
+
+	@Override
+	public boolean contains(final String path, final String blobSha) {
+		if (blobSha == null || !ObjectId.isId(blobSha)) {
+			return false;
+		}
+		return getBlobIds(path).contains(ObjectId.fromString(blobSha));
+	}
+
+	@Override
+	public boolean containsTree(final String directoryPath, final String treeSha) {
+		return contains(directoryPath + TREE_PATH_SUFFIX, treeSha);
+	}
+
+	@Override
+	public int getRevisionCount(final String path) {
+		return getBlobIds(path).size();
+	}
+}
@@ -0,0 +1,118 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Set;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.elasticpath.tools.smcupgrader.UpstreamBlobIndex;
+
+/**
+ * Keeps an {@link UpstreamBlobIndex} for each upstream remote on disk, under the {@code smc-upgrader} directory of the git directory.
+ * The stored index records the upstream ref tips it covers; when the tips have moved, only the commits reachable from the new tips are
+ * walked and merged into the stored index.
+ */
+public class UpstreamBlobIndexStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamBlobIndexStore.class);
+
+	private static final String INDEX_FILE_PREFIX = "upstream-blob-index-";
+	private static final String INDEX_FILE_SUFFIX = ".bin";
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private final Repository repository;
+
+	private final Path storeDirectory;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param repository     the repository
+	 * @param storeDirectory the directory in which the indexes are stored
+	 */
+	public UpstreamBlobIndexStore(final Repository repository, final Path storeDirectory) {
+		this.repository = repository;
+		this.storeDirectory = storeDirectory;
+	}
+
+	/**
+	 * Returns the index for the given remote, covering the history of the given ref tips. The stored index is reused when it covers the
+	 * same tips, and otherwise updated with the commits that are new since it was stored.
+	 *
+	 * @param upstreamRemoteName the name of the upstream remote
+	 * @param tips               the ids of the current ref tips of the upstream remote
+	 * @return the index
+	 * @throws IOException if the history cannot be read
+	 */
+	public UpstreamBlobIndex load(final String upstreamRemoteName, final Set<ObjectId> tips) throws IOException {
+		final Path indexFile = storeDirectory.resolve(INDEX_FILE_PREFIX + upstreamRemoteName + INDEX_FILE_SUFFIX);
+
+		if (tips.isEmpty()) {
+			return new UpstreamBlobIndexImpl();
+		}
+
+		if (tips.equals(readStoredTips(indexFile))) {
+			LOGGER.debug("Reusing stored upstream blob index {}", indexFile);
+			return MappedUpstreamBlobIndex.map(indexFile);
+		}
+
+		final MappedUpstreamBlobIndex storedIndex = readStoredIndex(indexFile);
+		final UpstreamBlobIndexImpl index = new UpstreamBlobIndexImpl();
+		final Set<ObjectId> indexedTips;
+		if (storedIndex == null) {
+			LOGGER.info("Indexing upstream history of remote '{}'...", upstreamRemoteName);
+			indexedTips = Collections.emptySet();
+		} else {
+			LOGGER.info("Updating index of upstream history of remote '{}'...", upstreamRemoteName);
+			storedIndex.copyTo(index);
+			indexedTips = storedIndex.getTips();
+		}
+
+		final int commitCount = index.addHistory(repository, tips, indexedTips);
+		LOGGER.debug("Indexed {} upstream commit(s)", commitCount);
+
+		try {
+			Files.createDirectories(storeDirectory);
+			final Path tempFile = storeDirectory.resolve(indexFile.getFileName() + TEMP_FILE_SUFFIX);
+			MappedUpstreamBlobIndex.write(tempFile, tips, index);
+			Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return MappedUpstreamBlobIndex.map(indexFile);
+		} catch (final IOException e) {
+			LOGGER.warn("Could not store upstream blob index in {}: {}", storeDirectory, e.getMessage());
+			return index;
+		}
+	}
+
+	private Set<ObjectId> readStoredTips(final Path indexFile) {
+		if (!Files.isRegularFile(indexFile)) {
+			return Collections.emptySet();
+		}
+
+		try {
+			return MappedUpstreamBlobIndex.readTips(indexFile);
+		} catch (final IOException e) {
+			LOGGER.debug("Ignoring unreadable upstream blob index {}", indexFile, e);
+			return Collections.emptySet();
+		}
+	}
+
+	private MappedUpstreamBlobIndex readStoredIndex(final Path indexFile) {
+		if (!Files.isRegularFile(indexFile)) {
+			return null;
+		}
+
+		try {
+			// Read rather than map, so that the file can be replaced once it has been updated
+			return MappedUpstreamBlobIndex.read(indexFile);
+		} catch (final IOException e) {
+			LOGGER.debug("Ignoring unreadable upstream blob index {}", indexFile, e);
+			return null;
+		}
+	}
+}
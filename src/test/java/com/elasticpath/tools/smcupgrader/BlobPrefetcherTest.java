@@ -0,0 +1,133 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BlobPrefetcherTest {
+	private static final String SHA_1 = "a952b2e04ebc61a64eb7c7f542ee9b2de9888370";
+	private static final byte[] CONTENTS = "<project/>".getBytes(StandardCharsets.UTF_8);
+	private static final long LARGE_BLOB_SIZE = 16L * 1024 * 1024;
+	private static final int SATURATING_TASK_COUNT = 4;
+	private static final long TIMEOUT_SECONDS = 10;
+
+	@Mock
+	private GitClient gitClient;
+
+	private BlobPrefetcher blobPrefetcher;
+
+	@BeforeEach
+	void setUp() {
+		blobPrefetcher = new BlobPrefetcher(gitClient);
+	}
+
+	@Test
+	void prefetchedContentsAreReadOnce() {
+		when(gitClient.getBlobSizes(Collections.singletonList(SHA_1))).thenReturn(Collections.singletonMap(SHA_1, (long) CONTENTS.length));
+		doAnswer(invocation -> {
+			invocation.<OutputStream>getArgument(1).write(CONTENTS);
+			return null;
+		}).when(gitClient).writeBlobContents(eq(SHA_1), any(OutputStream.class));
+
+		blobPrefetcher.prefetch(SHA_1, Runnable::run);
+		blobPrefetcher.prefetch(SHA_1, Runnable::run);
+
+		assertThat(blobPrefetcher.get(SHA_1)).isEqualTo(CONTENTS);
+		verify(gitClient, times(1)).writeBlobContents(eq(SHA_1), any(OutputStream.class));
+	}
+
+	@Test
+	void incompletePrefetchIsNotWaitedFor() {
+		final List<Runnable> pendingTasks = new ArrayList<>();
+
+		blobPrefetcher.prefetch(SHA_1, pendingTasks::add);
+
+		assertThat(pendingTasks).hasSize(1);
+		assertThat(blobPrefetcher.get(SHA_1)).isNull();
+	}
+
+	@Test
+	void prefetchRunsWhileTheWorkerPoolIsSaturated() throws InterruptedException {
+		when(gitClient.getBlobSizes(Collections.singletonList(SHA_1))).thenReturn(Collections.singletonMap(SHA_1, (long) CONTENTS.length));
+		doAnswer(invocation -> {
+			invocation.<OutputStream>getArgument(1).write(CONTENTS);
+			return null;
+		}).when(gitClient).writeBlobContents(eq(SHA_1), any(OutputStream.class));
+
+		final CountDownLatch release = new CountDownLatch(1);
+		try (WorkerPool workerPool = new WorkerPool(1)) {
+			// Occupy the only worker thread, then fill the queue with pending decisions
+			final CountDownLatch started = new CountDownLatch(1);
+			workerPool.getExecutor().execute(() -> {
+				started.countDown();
+				awaitUninterruptibly(release);
+			});
+			started.await();
+			for (int task = 0; task < SATURATING_TASK_COUNT; task++) {
+				workerPool.getExecutor().execute(() -> awaitUninterruptibly(release));
+			}
+
+			final CountDownLatch prefetched = new CountDownLatch(1);
+			blobPrefetcher.prefetch(SHA_1, task -> workerPool.getBackgroundExecutor().execute(() -> {
+				task.run();
+				prefetched.countDown();
+			}));
+
+			assertThat(prefetched.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+			assertThat(release.getCount()).isEqualTo(1);
+			assertThat(blobPrefetcher.get(SHA_1)).isEqualTo(CONTENTS);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void prefetchIsSkippedRatherThanRunOnTheCallerWhenItIsRejected() {
+		blobPrefetcher.prefetch(SHA_1, task -> {
+			throw new RejectedExecutionException("The queue is full");
+		});
+
+		assertThat(blobPrefetcher.get(SHA_1)).isNull();
+		verifyNoInteractions(gitClient);
+	}
+
+	@Test
+	void largeBlobsAreNotPrefetched() {
+		when(gitClient.getBlobSizes(Collections.singletonList(SHA_1))).thenReturn(Collections.singletonMap(SHA_1, LARGE_BLOB_SIZE));
+
+		blobPrefetcher.prefetch(SHA_1, Runnable::run);
+
+		assertThat(blobPrefetcher.get(SHA_1)).isNull();
+		verify(gitClient, never()).writeBlobContents(any(), any());
+	}
+
+	private static void awaitUninterruptibly(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ChangeContentsEquivalenceTest {
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String SHA_1 = "a952b2e04ebc61a64eb7c7f542ee9b2de9888370";
+	private static final String SHA_2 = "7418a139da6dc2fc7d50db7a341518c15f330c75";
+
+	private final ChangeContentsEquivalence changeContentsEquivalence = new ChangeContentsEquivalence();
+
+	@Test
+	void equalBlobIdsAreEqualContents() {
+		assertThat(changeContentsEquivalence.oursTheirsChangeContentsAreEqual(change(SHA_1, SHA_1))).isTrue();
+	}
+
+	@Test
+	void differentBlobIdsAreDifferentContents() {
+		assertThat(changeContentsEquivalence.oursTheirsChangeContentsAreEqual(change(SHA_1, SHA_2))).isFalse();
+	}
+
+	private Change change(final String ourVersionSHA, final String theirVersionSHA) {
+		return new Change(PATH_1, ChangeType.CREATED, ChangeType.CREATED, theirVersionSHA, ourVersionSHA, null);
+	}
+}
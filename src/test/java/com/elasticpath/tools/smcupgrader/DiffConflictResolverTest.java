@@ -1,21 +1,26 @@
 package com.elasticpath.tools.smcupgrader;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.lib.AbbreviatedObjectId;
 import org.eclipse.jgit.lib.Ref;
-import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,15 +35,14 @@ class DiffConflictResolverTest {
 	private static final String CONTENT_HASH_1 = "contentHash1";
 	private static final String SHA_1 = "a952b2e04ebc61a64eb7c7f542ee9b2de9888370";
 	private static final String SHA_2 = "7418a139da6dc2fc7d50db7a341518c15f330c75";
+	private static final String DIRECTORY_1 = "bill-of-materials";
+	private static final String TREE_SHA_1 = "5f1b8e1bd7b3b0b0a1c3f36e0d8f7a0a0c6b8e21";
 
 	@Mock
 	private GitClient gitClient;
 
 	@Mock
-	private RevCommit localCommit1;
-
-	@Mock
-	private RevCommit remoteCommit1;
+	private UpstreamBlobIndex upstreamBlobIndex;
 
 	private AtomicInteger resolvedWithOurs;
 	private AtomicInteger resolvedWithTheirs;
@@ -47,6 +51,10 @@ class DiffConflictResolverTest {
 
 	@BeforeEach
 	void setUp() {
+		lenient().doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(gitClient).withBlobReadScope(any());
 		diffConflictResolver = new DiffConflictResolver(gitClient) {
 			@Override
 			protected void resolveConflictOurs(final Change change) {
@@ -73,24 +81,71 @@ class DiffConflictResolverTest {
 		when(diff.getChangeType()).thenReturn(DiffEntry.ChangeType.MODIFY);
 		when(diff.getOldPath()).thenReturn(PATH_1);
 		when(gitClient.getDiff(releaseBranch)).thenReturn(Collections.singletonList(diff));
+		when(gitClient.getUpstreamChangedPaths(releaseBranch)).thenReturn(Optional.of(Collections.singleton(PATH_1)));
+
+		when(gitClient.getObjectIdsAtHead(anyCollection())).thenReturn(Collections.singletonMap(PATH_1, CONTENT_HASH_1));
 
-		when(gitClient.getLatestCommitForPath(PATH_1)).thenReturn(localCommit1);
+		when(gitClient.getUpstreamBlobIndex(UPSTREAM_REMOTE_NAME)).thenReturn(upstreamBlobIndex);
+		when(upstreamBlobIndex.contains(PATH_1, CONTENT_HASH_1)).thenReturn(true); // Match the blob at HEAD
+
+		diffConflictResolver.resolveDiffConflicts(UPSTREAM_REMOTE_NAME, VERSION);
 
-		when(gitClient.getContentHashOfPathAtCommit(eq(PATH_1), same(localCommit1))).thenReturn(Optional.of(CONTENT_HASH_1));
+		assertThat(resolvedWithOurs.get())
+				.as("Conflicts resolved with ours doesn't match expectation")
+				.isEqualTo(0);
+		assertThat(resolvedWithTheirs.get())
+				.as("Conflicts resolved with theirs doesn't match expectation")
+				.isEqualTo(1);
+	}
 
-		final List<RevCommit> authoritativeCommitsForPath2 = new ArrayList<>();
-		authoritativeCommitsForPath2.add(remoteCommit1);
-		when(gitClient.getAllCommitsForPathInAllBranches(PATH_1, UPSTREAM_REMOTE_NAME)).thenReturn(authoritativeCommitsForPath2);
+	@Test
+	void resolveDiffConflictsSkipsFilesNotChangedUpstream() {
+		final Ref releaseBranch = mock(Ref.class);
+		when(gitClient.getReleaseBranch(UPSTREAM_REMOTE_NAME, VERSION)).thenReturn(releaseBranch);
 
-		when(gitClient.getContentHashOfPathAtCommit(eq(PATH_1), same(remoteCommit1))).thenReturn(Optional.of(CONTENT_HASH_1)); // Match localCommit1
+		DiffEntry diff = mock(DiffEntry.class);
+		when(diff.getNewId()).thenReturn(AbbreviatedObjectId.fromString(SHA_1));
+		when(diff.getOldId()).thenReturn(AbbreviatedObjectId.fromString(SHA_2));
+		when(diff.getChangeType()).thenReturn(DiffEntry.ChangeType.MODIFY);
+		when(diff.getOldPath()).thenReturn(PATH_1);
+		when(gitClient.getDiff(releaseBranch)).thenReturn(Collections.singletonList(diff));
+		when(gitClient.getUpstreamChangedPaths(releaseBranch)).thenReturn(Optional.of(Collections.emptySet()));
 
 		diffConflictResolver.resolveDiffConflicts(UPSTREAM_REMOTE_NAME, VERSION);
 
 		assertThat(resolvedWithOurs.get())
 				.as("Conflicts resolved with ours doesn't match expectation")
 				.isEqualTo(0);
+		assertThat(resolvedWithTheirs.get())
+				.as("Conflicts resolved with theirs doesn't match expectation")
+				.isEqualTo(0);
+	}
+
+	@Test
+	void resolveDiffConflictsInUnmodifiedDirectoryWithoutCheckingEachFile() {
+		final Ref releaseBranch = mock(Ref.class);
+		when(gitClient.getReleaseBranch(UPSTREAM_REMOTE_NAME, VERSION)).thenReturn(releaseBranch);
+
+		DiffEntry diff = mock(DiffEntry.class);
+		when(diff.getNewId()).thenReturn(AbbreviatedObjectId.fromString(SHA_1));
+		when(diff.getOldId()).thenReturn(AbbreviatedObjectId.fromString(SHA_2));
+		when(diff.getChangeType()).thenReturn(DiffEntry.ChangeType.MODIFY);
+		when(diff.getOldPath()).thenReturn(PATH_1);
+		when(gitClient.getDiff(releaseBranch)).thenReturn(Collections.singletonList(diff));
+		when(gitClient.getUpstreamChangedPaths(releaseBranch)).thenReturn(Optional.of(Collections.singleton(PATH_1)));
+
+		final Map<String, String> objectIdsAtHead = new HashMap<>();
+		objectIdsAtHead.put(PATH_1, SHA_2);
+		objectIdsAtHead.put(DIRECTORY_1, TREE_SHA_1);
+		when(gitClient.getObjectIdsAtHead(new HashSet<>(Arrays.asList(PATH_1, DIRECTORY_1)))).thenReturn(objectIdsAtHead);
+		when(gitClient.getUpstreamBlobIndex(UPSTREAM_REMOTE_NAME)).thenReturn(upstreamBlobIndex);
+		when(upstreamBlobIndex.containsTree(DIRECTORY_1, TREE_SHA_1)).thenReturn(true);
+
+		diffConflictResolver.resolveDiffConflicts(UPSTREAM_REMOTE_NAME, VERSION);
+
 		assertThat(resolvedWithTheirs.get())
 				.as("Conflicts resolved with theirs doesn't match expectation")
 				.isEqualTo(1);
+		verify(gitClient, never()).getContentHashOfPathAtCommit(any(), any());
 	}
-}
\ No newline at end of file
+}
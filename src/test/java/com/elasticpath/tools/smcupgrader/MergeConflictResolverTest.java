@@ -1,22 +1,25 @@
 package com.elasticpath.tools.smcupgrader;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import org.eclipse.jgit.lib.IndexDiff;
-import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.lib.Ref;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,22 +34,16 @@ class MergeConflictResolverTest {
 	private static final String PATH_3 = "extensions/maven/individual-settings.xml";
 	private static final String CONTENT_HASH_1 = "contentHash1";
 	private static final String CONTENT_HASH_2 = "contentHash2";
-	private static final String CONTENT_HASH_3 = "contentHash3";
+	private static final String VERSION = "8.5.x";
 
 	@Mock
 	private GitClient gitClient;
 
 	@Mock
-	private RevCommit localCommit1;
+	private UpstreamBlobIndex upstreamBlobIndex;
 
 	@Mock
-	private RevCommit remoteCommit1;
-
-	@Mock
-	private RevCommit localCommit2;
-
-	@Mock
-	private RevCommit remoteCommit2;
+	private Ref releaseBranch;
 
 	private AtomicInteger resolvedWithOurs;
 	private AtomicInteger resolvedWithTheirs;
@@ -55,6 +52,10 @@ class MergeConflictResolverTest {
 
 	@BeforeEach
 	void setUp() {
+		lenient().doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(gitClient).withBlobReadScope(any());
 		mergeConflictResolver = new MergeConflictResolver(gitClient) {
 			@Override
 			protected void resolveConflictOurs(final Change change) {
@@ -72,34 +73,26 @@ class MergeConflictResolverTest {
 
 	@Test
 	void resolveMergeConflicts() {
-		final Map<String, IndexDiff.StageState> conflicts = new HashMap<>();
-		conflicts.put(PATH_1, IndexDiff.StageState.BOTH_ADDED);
-		conflicts.put(PATH_2, IndexDiff.StageState.BOTH_MODIFIED);
-		conflicts.put(PATH_3, IndexDiff.StageState.BOTH_MODIFIED);
-		when(gitClient.getConflicts()).thenReturn(conflicts);
-
-		final Set<IndexEntry> indexStatusEntries = new HashSet<>();
-		indexStatusEntries.add(new IndexEntry(PATH_1, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()));
-		indexStatusEntries.add(new IndexEntry(PATH_2, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()));
-		indexStatusEntries.add(new IndexEntry(PATH_3, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()));
-		when(gitClient.getStatusIndexEntries()).thenReturn(indexStatusEntries);
-
-		when(gitClient.getLatestCommitForPath(PATH_2)).thenReturn(localCommit1);
-		when(gitClient.getLatestCommitForPath(PATH_3)).thenReturn(localCommit2);
-
-		when(gitClient.getContentHashOfPathAtCommit(eq(PATH_2), same(localCommit1))).thenReturn(Optional.of(CONTENT_HASH_1));
-		when(gitClient.getContentHashOfPathAtCommit(eq(PATH_3), same(localCommit2))).thenReturn(Optional.of(CONTENT_HASH_2));
-
-		final List<RevCommit> authoritativeCommitsForPath2 = new ArrayList<>();
-		authoritativeCommitsForPath2.add(remoteCommit1);
-		when(gitClient.getAllCommitsForPathInAllBranches(PATH_2, UPSTREAM_REMOTE_NAME)).thenReturn(authoritativeCommitsForPath2);
-
-		final List<RevCommit> authoritativeCommitsForPath3 = new ArrayList<>();
-		authoritativeCommitsForPath3.add(remoteCommit2);
-		when(gitClient.getAllCommitsForPathInAllBranches(PATH_3, UPSTREAM_REMOTE_NAME)).thenReturn(authoritativeCommitsForPath3);
-
-		when(gitClient.getContentHashOfPathAtCommit(eq(PATH_2), same(remoteCommit1))).thenReturn(Optional.of(CONTENT_HASH_1)); // Match localCommit1
-		when(gitClient.getContentHashOfPathAtCommit(eq(PATH_3), same(remoteCommit2))).thenReturn(Optional.of(CONTENT_HASH_3)); // Don't match localCommit2
+		final String path1Sha = UUID.randomUUID().toString(); // Both sides created the same contents
+		final List<IndexEntry> conflictingIndexEntries = Arrays.asList(
+				new IndexEntry(PATH_1, IndexEntry.Stage.OURS.ordinal(), path1Sha),
+				new IndexEntry(PATH_1, IndexEntry.Stage.THEIRS.ordinal(), path1Sha),
+				new IndexEntry(PATH_2, IndexEntry.Stage.BASE.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_2, IndexEntry.Stage.OURS.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_2, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_3, IndexEntry.Stage.BASE.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_3, IndexEntry.Stage.OURS.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_3, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()));
+		when(gitClient.getConflictingIndexEntries()).thenReturn(conflictingIndexEntries);
+
+		final Map<String, String> objectIdsAtHead = new HashMap<>();
+		objectIdsAtHead.put(PATH_2, CONTENT_HASH_1);
+		objectIdsAtHead.put(PATH_3, CONTENT_HASH_2);
+		when(gitClient.getObjectIdsAtHead(anyCollection())).thenReturn(objectIdsAtHead);
+
+		when(gitClient.getUpstreamBlobIndex(UPSTREAM_REMOTE_NAME)).thenReturn(upstreamBlobIndex);
+		when(upstreamBlobIndex.contains(PATH_2, CONTENT_HASH_1)).thenReturn(true); // Match the blob at HEAD
+		when(upstreamBlobIndex.contains(PATH_3, CONTENT_HASH_2)).thenReturn(false); // Don't match the blob at HEAD
 
 		mergeConflictResolver.resolveMergeConflicts(UPSTREAM_REMOTE_NAME);
 
@@ -109,5 +102,46 @@ class MergeConflictResolverTest {
 		assertThat(resolvedWithTheirs.get())
 				.as("Conflicts resolved with theirs doesn't match expectation")
 				.isEqualTo(1);
+		verify(gitClient).learnCommittedResolutions(true);
+		verify(gitClient).recordPendingConflicts(anyList());
+	}
+
+	@Test
+	void planReusesRecordedResolutionWithoutRecordingConflicts() {
+		final List<IndexEntry> conflictingIndexEntries = Arrays.asList(
+				new IndexEntry(PATH_1, IndexEntry.Stage.BASE.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_1, IndexEntry.Stage.OURS.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_1, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()));
+		when(gitClient.getConflictingIndexEntries()).thenReturn(conflictingIndexEntries);
+		final Change conflict = new ChangeFactory().createMergeConflictChanges(conflictingIndexEntries).get(0);
+		when(gitClient.getRecordedResolution(conflict)).thenReturn(Optional.of(new RecordedResolution(CONTENT_HASH_1, null)));
+
+		final List<PlannedResolution> plannedResolutions = mergeConflictResolver.planMergeConflicts(UPSTREAM_REMOTE_NAME);
+
+		assertThat(plannedResolutions).containsExactly(
+				new PlannedResolution(PATH_1, ConflictResolutionStrategy.REUSE_RECORDED_RESOLUTION, CONTENT_HASH_1, null));
+		verify(gitClient).learnCommittedResolutions(false);
+		verify(gitClient, never()).recordPendingConflicts(anyList());
+	}
+
+	@Test
+	void previewDecidesConflictsWithoutRecordingThem() {
+		final List<IndexEntry> conflictingIndexEntries = Arrays.asList(
+				new IndexEntry(PATH_1, IndexEntry.Stage.BASE.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_1, IndexEntry.Stage.OURS.ordinal(), UUID.randomUUID().toString()),
+				new IndexEntry(PATH_1, IndexEntry.Stage.THEIRS.ordinal(), UUID.randomUUID().toString()));
+		when(gitClient.getReleaseBranch(UPSTREAM_REMOTE_NAME, VERSION)).thenReturn(releaseBranch);
+		when(releaseBranch.getName()).thenReturn("refs/remotes/" + UPSTREAM_REMOTE_NAME + "/release/" + VERSION);
+		when(gitClient.previewMergeConflicts(releaseBranch)).thenReturn(conflictingIndexEntries);
+
+		final List<Resolution> resolutions = mergeConflictResolver.previewMergeConflicts(UPSTREAM_REMOTE_NAME, VERSION);
+
+		assertThat(resolutions)
+				.extracting(Resolution::getStrategy)
+				.containsExactly(ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED);
+		assertThat(resolvedWithOurs.get()).isZero();
+		assertThat(resolvedWithTheirs.get()).isZero();
+		verify(gitClient, never()).getConflictingIndexEntries();
+		verify(gitClient, never()).recordPendingConflicts(anyList());
 	}
-}
\ No newline at end of file
+}
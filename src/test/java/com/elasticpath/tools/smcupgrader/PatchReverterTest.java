@@ -0,0 +1,61 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.commit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeCommand;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.elasticpath.tools.smcupgrader.impl.GitClientImpl;
+
+/**
+ * Test class for {@link PatchReverter}.
+ */
+class PatchReverterTest {
+	private static final String UPSTREAM_REMOTE_NAME = "upstream";
+	private static final String VERSION = "8.6.x";
+	private static final String PATCHED_PATH = "bill-of-materials/pom.xml";
+	private static final String LOCAL_PATH = "extensions/maven/individual-settings.xml";
+	private static final String UPGRADE_CONTENTS = "8.6.0.20240628135836-3288d0";
+
+	@TempDir
+	File repoDir;
+
+	@Test
+	void patchMergedFromTheReleaseBranchIsReverted() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			commit(git, PATCHED_PATH, UPGRADE_CONTENTS);
+			final String mainBranch = git.getRepository().getBranch();
+			git.checkout().setCreateBranch(true).setName("release").call();
+			final RevCommit patch = commit(git, PATCHED_PATH, "Patch: fix f");
+			final RefUpdate releaseBranchUpdate = git.getRepository()
+					.updateRef("refs/remotes/" + UPSTREAM_REMOTE_NAME + "/release/" + VERSION);
+			releaseBranchUpdate.setNewObjectId(patch);
+			releaseBranchUpdate.update();
+			git.checkout().setName(mainBranch).call();
+			commit(git, LOCAL_PATH, "Local change");
+			git.merge().include(patch).setFastForward(MergeCommand.FastForwardMode.NO_FF).call();
+			final RevCommit merge = git.log().setMaxCount(1).call().iterator().next();
+
+			new PatchReverter(new GitClientImpl(git.getRepository())).revertPatches(UPSTREAM_REMOTE_NAME, VERSION);
+
+			final RevCommit head = git.log().setMaxCount(1).call().iterator().next();
+			assertThat(head.getFullMessage()).startsWith("Revert \"Patch: fix f\"\nThis reverts commit " + patch.name());
+			assertThat(head.getParent(0)).isEqualTo(merge);
+			assertThat(readFile(PATCHED_PATH)).isEqualTo(UPGRADE_CONTENTS);
+			assertThat(readFile(LOCAL_PATH)).isEqualTo("Local change");
+		}
+	}
+
+	private String readFile(final String path) throws Exception {
+		return new String(Files.readAllBytes(new File(repoDir, path).toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,27 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+
+class ProcessCollectionInParallelWithProgressTest {
+
+	@Test
+	void valuesAreSubmittedMostExpensiveFirst() {
+		final List<String> input = Arrays.asList("a", "ccc", "bb", "dddd");
+		final Queue<String> processed = new ConcurrentLinkedQueue<>();
+
+		final long completedCount = ProcessCollectionInParallelWithProgress.process(input, value -> {
+			processed.add(value);
+			return value.length() > 2;
+		}, String::length, Runnable::run);
+
+		assertThat(completedCount).isEqualTo(2);
+		assertThat(processed).containsExactly("dddd", "ccc", "bb", "a");
+	}
+}
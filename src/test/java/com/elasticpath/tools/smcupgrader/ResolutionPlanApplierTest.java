@@ -0,0 +1,111 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ResolutionPlanApplierTest {
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String PATH_2 = "extensions/maven/individual-settings.xml";
+	private static final String PATH_3 = "commerce-engine/batch/ep-batch-processing/pom.xml";
+	private static final String PATH_4 = "extensions/database/pom.xml";
+	private static final String SHA_1 = "a952b2e04ebc61a64eb7c7f542ee9b2de9888370";
+	private static final String SHA_2 = "5d0a3cb3a4a5ef0c5c5e1cbe0e6c7e3b9c9f2a11";
+
+	@Mock
+	private GitClient gitClient;
+
+	@TempDir
+	File workingDir;
+
+	private ResolutionPlanApplier resolutionPlanApplier;
+
+	private ResolutionPlan plan;
+
+	@BeforeEach
+	void setUp() {
+		lenient().doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(0).run();
+			return null;
+		}).when(gitClient).withBlobReadScope(any());
+		resolutionPlanApplier = new ResolutionPlanApplier(gitClient);
+		plan = new ResolutionPlan();
+		plan.add(new PlannedResolution(PATH_1, ConflictResolutionStrategy.ACCEPT_THEIRS, SHA_1, null));
+		plan.add(new PlannedResolution(PATH_2, ConflictResolutionStrategy.ACCEPT_THEIRS, null, null));
+		plan.add(new PlannedResolution(PATH_3, ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED, null, null));
+	}
+
+	@Test
+	void planIsAppliedWithOneIndexUpdate() {
+		when(gitClient.getBlobSizes(Collections.singletonList(SHA_1))).thenReturn(Collections.singletonMap(SHA_1, 0L));
+		when(gitClient.getWorkingDir()).thenReturn(workingDir);
+
+		resolutionPlanApplier.apply(plan);
+
+		verify(gitClient).writeBlobContents(eq(SHA_1), any(OutputStream.class));
+		verify(gitClient).stageAll(Collections.singletonList(PATH_1));
+		verify(gitClient).deleteAll(Collections.singletonList(PATH_2));
+	}
+
+	@Test
+	void blobsOfEachPackAreWrittenInPackOrderThroughOneReader() {
+		plan.add(new PlannedResolution(PATH_4, ConflictResolutionStrategy.ACCEPT_THEIRS, SHA_2, null));
+		final Map<String, Long> blobSizes = new HashMap<>();
+		blobSizes.put(SHA_1, 0L);
+		blobSizes.put(SHA_2, 0L);
+		when(gitClient.getBlobSizes(Arrays.asList(SHA_1, SHA_2))).thenReturn(blobSizes);
+		when(gitClient.groupByPack(Arrays.asList(SHA_1, SHA_2))).thenReturn(Arrays.asList(Arrays.asList(SHA_2, SHA_1),
+				Collections.emptyList()));
+		when(gitClient.getWorkingDir()).thenReturn(workingDir);
+		final List<List<String>> blobsWrittenByReader = Collections.synchronizedList(new ArrayList<>());
+		final ThreadLocal<List<String>> blobsWrittenByCurrentReader = new ThreadLocal<>();
+		doAnswer(invocation -> {
+			blobsWrittenByCurrentReader.set(new ArrayList<>());
+			invocation.<Runnable>getArgument(0).run();
+			blobsWrittenByReader.add(blobsWrittenByCurrentReader.get());
+			blobsWrittenByCurrentReader.remove();
+			return null;
+		}).when(gitClient).withBlobReadScope(any());
+		doAnswer(invocation -> blobsWrittenByCurrentReader.get().add(invocation.getArgument(0)))
+				.when(gitClient).writeBlobContents(any(), any(OutputStream.class));
+
+		resolutionPlanApplier.apply(plan);
+
+		assertThat(blobsWrittenByReader).contains(Arrays.asList(SHA_2, SHA_1));
+	}
+
+	@Test
+	void planWithMissingBlobsIsRejectedBeforeAnyFileIsWritten() {
+		when(gitClient.getBlobSizes(Collections.singletonList(SHA_1))).thenReturn(Collections.emptyMap());
+
+		assertThatThrownBy(() -> resolutionPlanApplier.apply(plan))
+				.isInstanceOf(LoggableException.class)
+				.hasMessageContaining("1 object(s) missing");
+		verify(gitClient, never()).writeBlobContents(any(), any());
+		verify(gitClient, never()).stageAll(anyCollection());
+	}
+}
@@ -0,0 +1,64 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResolutionPlanTest {
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String PATH_2 = "extensions/maven/individual-settings.xml";
+	private static final String PATH_3 = "devops/scripts/build\tdeploy.sh";
+	private static final String SHA_1 = "a952b2e04ebc61a64eb7c7f542ee9b2de9888370";
+	private static final String SHA_2 = "7418a139da6dc2fc7d50db7a341518c15f330c75";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void planIsWrittenAndReadBack() {
+		final ResolutionPlan plan = new ResolutionPlan();
+		plan.addAll(Arrays.asList(
+				new PlannedResolution(PATH_1, ConflictResolutionStrategy.ACCEPT_THEIRS, SHA_1, new FilePermissions(true, true, false)),
+				new PlannedResolution(PATH_2, ConflictResolutionStrategy.ACCEPT_THEIRS, null, null),
+				new PlannedResolution(PATH_3, ConflictResolutionStrategy.ACCEPT_OURS, SHA_2, null),
+				new PlannedResolution("manual.txt", ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED, null, null)));
+		final Path planFile = tempDir.resolve("plan.tsv");
+
+		plan.write(planFile);
+		final ResolutionPlan readPlan = ResolutionPlan.read(planFile);
+
+		assertThat(readPlan.getResolutions()).containsExactlyElementsOf(plan.getResolutions());
+		assertThat(readPlan.getResolutions().get(1).isDeletion()).isTrue();
+		assertThat(readPlan.getResolutions().get(3).isWrite()).isFalse();
+		assertThat(readPlan.getResolutions().get(3).isDeletion()).isFalse();
+	}
+
+	@Test
+	void firstResolutionForAPathTakesPrecedence() {
+		final ResolutionPlan plan = new ResolutionPlan();
+
+		assertThat(plan.add(new PlannedResolution(PATH_1, ConflictResolutionStrategy.ACCEPT_OURS, SHA_1, null))).isTrue();
+		assertThat(plan.add(new PlannedResolution(PATH_1, ConflictResolutionStrategy.ACCEPT_THEIRS, SHA_2, null))).isFalse();
+
+		assertThat(plan.getResolutions())
+				.containsExactly(new PlannedResolution(PATH_1, ConflictResolutionStrategy.ACCEPT_OURS, SHA_1, null));
+	}
+
+	@Test
+	void invalidPlanFileIsRejected() throws Exception {
+		final Path planFile = tempDir.resolve("plan.tsv");
+		Files.write(planFile, ("# smc-upgrader resolution plan v1\nACCEPT_THEIRS\tnot-a-sha\t-\t" + PATH_1 + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+
+		assertThatThrownBy(() -> ResolutionPlan.read(planFile))
+				.isInstanceOf(LoggableException.class)
+				.hasMessageContaining("line 2");
+	}
+}
@@ -0,0 +1,70 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Ref;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class UpgradeForecasterTest {
+	private static final String UPSTREAM_REMOTE_NAME = "smc-upstream";
+	private static final String CURRENT_VERSION = "8.5.x";
+	private static final String NEXT_VERSION = "8.6.x";
+	private static final String MISSING_VERSION = "8.7.x";
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String PATH_2 = "extensions/maven/individual-settings.xml";
+
+	@Mock
+	private GitClient gitClient;
+
+	@Mock
+	private MergeConflictResolver mergeConflictResolver;
+
+	@Mock
+	private Ref currentReleaseBranch;
+
+	@Mock
+	private Ref nextReleaseBranch;
+
+	@Test
+	void eachHopIsForecastFromTheDirectUpgradeToItsTarget() {
+		final List<IndexEntry> currentEntries = Collections.singletonList(new IndexEntry(PATH_1, IndexEntry.Stage.OURS.ordinal(), "a"));
+		final List<IndexEntry> nextEntries = Arrays.asList(new IndexEntry(PATH_1, IndexEntry.Stage.OURS.ordinal(), "b"),
+				new IndexEntry(PATH_2, IndexEntry.Stage.OURS.ordinal(), "c"));
+		when(gitClient.getReleaseBranch(UPSTREAM_REMOTE_NAME, CURRENT_VERSION)).thenReturn(currentReleaseBranch);
+		when(gitClient.getReleaseBranch(UPSTREAM_REMOTE_NAME, NEXT_VERSION)).thenReturn(nextReleaseBranch);
+		when(gitClient.getReleaseBranch(UPSTREAM_REMOTE_NAME, MISSING_VERSION)).thenThrow(new LoggableException("No release branch"));
+		when(gitClient.previewMergeConflicts(currentReleaseBranch)).thenReturn(currentEntries);
+		when(gitClient.previewMergeConflicts(nextReleaseBranch)).thenReturn(nextEntries);
+		when(mergeConflictResolver.decidePreviewedMergeConflicts(currentEntries, UPSTREAM_REMOTE_NAME))
+				.thenReturn(Collections.singletonList(resolution(PATH_1, ConflictResolutionStrategy.ACCEPT_THEIRS)));
+		when(mergeConflictResolver.decidePreviewedMergeConflicts(nextEntries, UPSTREAM_REMOTE_NAME))
+				.thenReturn(Arrays.asList(resolution(PATH_1, ConflictResolutionStrategy.ACCEPT_THEIRS),
+						resolution(PATH_2, ConflictResolutionStrategy.MANUAL_RESOLUTION_REQUIRED)));
+
+		final List<UpgradeForecaster.UpgradeForecast> forecasts = new UpgradeForecaster(gitClient, mergeConflictResolver)
+				.forecast(UPSTREAM_REMOTE_NAME, CURRENT_VERSION, Arrays.asList(CURRENT_VERSION, NEXT_VERSION, MISSING_VERSION), Runnable::run);
+
+		assertThat(forecasts)
+				.extracting(UpgradeForecaster.UpgradeForecast::getFromVersion, UpgradeForecaster.UpgradeForecast::getToVersion,
+						UpgradeForecaster.UpgradeForecast::getConflictCount, UpgradeForecaster.UpgradeForecast::getAutoResolvableCount,
+						UpgradeForecaster.UpgradeForecast::getNewConflictCount)
+				.containsExactly(
+						tuple(CURRENT_VERSION, CURRENT_VERSION, 1L, 1L, 1L),
+						tuple(CURRENT_VERSION, NEXT_VERSION, 2L, 1L, 1L));
+		assertThat(UpgradeForecaster.formatTable(CURRENT_VERSION, forecasts)).contains("8.5.x -> 8.6.x");
+	}
+
+	private Resolution resolution(final String path, final ConflictResolutionStrategy strategy) {
+		return new Resolution(new Change(path, ChangeType.UPDATED, ChangeType.UPDATED, null, null, null), strategy);
+	}
+}
@@ -0,0 +1,60 @@
+package com.elasticpath.tools.smcupgrader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link WorkerPoolConfig}.
+ */
+class WorkerPoolConfigTest {
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	void testLoad_missingFile_returnsDefault() {
+		WorkerPoolConfig config = WorkerPoolConfig.load(new File(tempDir, "does-not-exist.json"));
+
+		assertThat(config.getThreads()).isEqualTo(WorkerPool.getDefaultThreads());
+	}
+
+	@Test
+	void testLoad_threadsSpecified() throws IOException {
+		File configFile = writeConfig("{ \"threads\": 12, \"llm\": { \"executable\": \"mytool\" } }");
+
+		WorkerPoolConfig config = WorkerPoolConfig.load(configFile);
+
+		assertThat(config.getThreads()).isEqualTo(12);
+	}
+
+	@Test
+	void testLoad_threadsUnspecified_returnsDefault() throws IOException {
+		File configFile = writeConfig("{ \"llm\": { \"executable\": \"mytool\" } }");
+
+		WorkerPoolConfig config = WorkerPoolConfig.load(configFile);
+
+		assertThat(config.getThreads()).isEqualTo(WorkerPool.getDefaultThreads());
+	}
+
+	@Test
+	void testLoad_invalidThreads_returnsDefault() throws IOException {
+		File configFile = writeConfig("{ \"threads\": 0 }");
+
+		WorkerPoolConfig config = WorkerPoolConfig.load(configFile);
+
+		assertThat(config.getThreads()).isEqualTo(WorkerPool.getDefaultThreads());
+	}
+
+	private File writeConfig(final String json) throws IOException {
+		File configFile = new File(tempDir, ".smc-upgrader.json");
+		Files.write(configFile.toPath(), json.getBytes(StandardCharsets.UTF_8));
+		return configFile;
+	}
+}
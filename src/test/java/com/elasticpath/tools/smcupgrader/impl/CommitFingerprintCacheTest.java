@@ -0,0 +1,57 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommitFingerprintCacheTest {
+	private static final ObjectId COMMIT_1 = ObjectId.fromString("1111111111111111111111111111111111111111");
+	private static final ObjectId COMMIT_2 = ObjectId.fromString("2222222222222222222222222222222222222222");
+	private static final String FINGERPRINT_1 = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+	private static final String FINGERPRINT_2 = "fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210";
+
+	@TempDir
+	Path storeDir;
+
+	@Test
+	void fingerprintsAreComputedOnceAndReloadedByLaterRuns() {
+		final AtomicInteger computations = new AtomicInteger();
+
+		final CommitFingerprintCache cache = new CommitFingerprintCache(storeDir);
+		assertThat(cache.computeIfAbsent(COMMIT_1, commit -> fingerprint(computations, FINGERPRINT_1))).isEqualTo(FINGERPRINT_1);
+		assertThat(cache.computeIfAbsent(COMMIT_1, commit -> fingerprint(computations, FINGERPRINT_2))).isEqualTo(FINGERPRINT_1);
+		assertThat(computations).hasValue(1);
+
+		final CommitFingerprintCache reloadedCache = new CommitFingerprintCache(storeDir);
+		assertThat(reloadedCache.computeIfAbsent(COMMIT_1, commit -> fingerprint(computations, FINGERPRINT_2))).isEqualTo(FINGERPRINT_1);
+		assertThat(computations).hasValue(1);
+	}
+
+	@Test
+	void partiallyWrittenRecordIsDiscarded() throws Exception {
+		final CommitFingerprintCache cache = new CommitFingerprintCache(storeDir);
+		cache.computeIfAbsent(COMMIT_1, commit -> FINGERPRINT_1);
+		Files.write(storeDir.resolve("commit-fingerprints-v1.bin"), "partial".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		final CommitFingerprintCache reloadedCache = new CommitFingerprintCache(storeDir);
+		assertThat(reloadedCache.computeIfAbsent(COMMIT_1, commit -> FINGERPRINT_2)).isEqualTo(FINGERPRINT_1);
+		assertThat(reloadedCache.computeIfAbsent(COMMIT_2, commit -> FINGERPRINT_2)).isEqualTo(FINGERPRINT_2);
+
+		final CommitFingerprintCache laterCache = new CommitFingerprintCache(storeDir);
+		assertThat(laterCache.computeIfAbsent(COMMIT_1, commit -> FINGERPRINT_2)).isEqualTo(FINGERPRINT_1);
+		assertThat(laterCache.computeIfAbsent(COMMIT_2, commit -> FINGERPRINT_1)).isEqualTo(FINGERPRINT_2);
+	}
+
+	private String fingerprint(final AtomicInteger computations, final String fingerprint) {
+		computations.incrementAndGet();
+		return fingerprint;
+	}
+}
@@ -0,0 +1,281 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.blobId;
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.commit;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.internal.storage.file.Pack;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitClientImplTest {
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String PATH_2 = "extensions/maven/individual-settings.xml";
+	private static final String ROOT_PATH = "README.md";
+	private static final String REVERTED_PATH = "extensions/pom.xml";
+	private static final String DELETED_PATH = "extensions/database/pom.xml";
+
+	@TempDir
+	File repoDir;
+
+	@Test
+	void revertIsCommittedOnHead() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			commit(git, PATH_1, "version 1");
+			final RevCommit patch = commit(git, PATH_1, "version 2");
+
+			assertThat(new GitClientImpl(git.getRepository()).revertAll(Collections.singletonList(patch))).containsExactly(patch);
+
+			assertThat(git.log().setMaxCount(1).call().iterator().next().getParent(0)).isEqualTo(patch);
+			assertThat(readFile(PATH_1)).isEqualTo("version 1");
+			assertThat(git.status().call().isClean()).isTrue();
+		}
+	}
+
+	@Test
+	void failedHeadUpdateLeavesWorkingDirectoryUnchanged() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			commit(git, PATH_1, "version 1");
+			final RevCommit patch = commit(git, PATH_1, "version 2");
+			final File branchLock = new File(git.getRepository().getDirectory(), git.getRepository().getFullBranch() + ".lock");
+			Files.createFile(branchLock.toPath());
+
+			assertThatThrownBy(() -> new GitClientImpl(git.getRepository()).revertAll(Collections.singletonList(patch)))
+					.hasMessageContaining("Could not update HEAD");
+
+			assertThat(git.getRepository().resolve(Constants.HEAD)).isEqualTo(patch);
+			assertThat(readFile(PATH_1)).isEqualTo("version 2");
+			assertThat(git.status().call().isClean()).isTrue();
+		}
+	}
+
+	@Test
+	void objectIdsAtHeadIncludeRequestedFilesAndDirectoriesOnly() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			commit(git, PATH_1, "version 1");
+			final RevCommit head = commit(git, PATH_2, "settings");
+
+			final Map<String, String> objectIds = new GitClientImpl(git.getRepository())
+					.getObjectIdsAtHead(Arrays.asList(PATH_1, "extensions", "extensions/maven", "extensions/missing.txt"));
+
+			assertThat(objectIds).containsOnly(
+					entry(PATH_1, blobId(git, head, PATH_1).name()),
+					entry("extensions", blobId(git, head, "extensions").name()),
+					entry("extensions/maven", blobId(git, head, "extensions/maven").name()));
+		}
+	}
+
+	@Test
+	void blobsAtHeadAreTheBlobsOfTheLatestCommitForEachPath() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final RevCommit root = commit(git, ROOT_PATH, "root");
+			commit(git, PATH_1, "version 1");
+			commit(git, PATH_2, "settings 1");
+			commit(git, DELETED_PATH, "deleted");
+			final String mainBranch = git.getRepository().getBranch();
+			git.branchCreate().setName("side").call();
+			final RevCommit ours = commit(git, PATH_1, "version 2");
+			commit(git, PATH_2, "settings 2");
+			git.checkout().setName("side").call();
+			commit(git, PATH_1, "version 3");
+			final RevCommit theirs = commit(git, PATH_2, "settings 3");
+			git.checkout().setName(mainBranch).call();
+			git.merge().include(theirs).call();
+			// The merge keeps our side of one path and their side of the other
+			writeFile(PATH_1, "version 2");
+			writeFile(PATH_2, "settings 3");
+			git.add().addFilepattern(PATH_1).addFilepattern(PATH_2).call();
+			git.commit().setMessage("merge").setSign(false).call();
+			commit(git, REVERTED_PATH, "reverted");
+			commit(git, REVERTED_PATH, "changed");
+			final RevCommit revert = commit(git, REVERTED_PATH, "reverted");
+			git.rm().addFilepattern(DELETED_PATH).call();
+			git.commit().setMessage("delete").setSign(false).call();
+			final GitClientImpl gitClient = new GitClientImpl(git.getRepository());
+
+			final Map<String, String> blobIdsAtHead = gitClient.getObjectIdsAtHead(
+					Arrays.asList(ROOT_PATH, PATH_1, PATH_2, REVERTED_PATH, DELETED_PATH));
+
+			// The latest commits are those reported by git log -1 -- <path>
+			assertThat(blobIdsAtHead).containsOnly(
+					entry(ROOT_PATH, blobId(git, root, ROOT_PATH).name()),
+					entry(PATH_1, blobId(git, ours, PATH_1).name()),
+					entry(PATH_2, blobId(git, theirs, PATH_2).name()),
+					entry(REVERTED_PATH, blobId(git, revert, REVERTED_PATH).name()));
+			assertThat(Arrays.asList(ROOT_PATH, PATH_1, PATH_2, REVERTED_PATH)).extracting(gitClient::getLatestCommitForPath)
+					.containsExactly(root, ours, theirs, revert);
+		}
+	}
+
+	@Test
+	void workingFileMatchesBlobWithTheSameContents() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final RevCommit head = commit(git, PATH_1, "version 1");
+			final String blobSha = blobId(git, head, PATH_1).name();
+			final GitClientImpl gitClient = new GitClientImpl(git.getRepository());
+
+			assertThat(gitClient.workingFileMatchesBlob(PATH_1, blobSha)).isTrue();
+
+			writeFile(PATH_1, "version 2");
+
+			assertThat(gitClient.workingFileMatchesBlob(PATH_1, blobSha)).isFalse();
+		}
+	}
+
+	@Test
+	void workingFileWithOtherLineEndingsDoesNotMatchBlob() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final RevCommit head = commit(git, PATH_1, "line 1\nline 2\n");
+			final StoredConfig config = git.getRepository().getConfig();
+			config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOCRLF, true);
+			config.save();
+			writeFile(PATH_1, "line 1\r\nline 2\r\n");
+
+			// Git would check out the blob this way, but the file does not hold the bytes that writing the blob would produce
+			assertThat(new GitClientImpl(git.getRepository()).workingFileMatchesBlob(PATH_1, blobId(git, head, PATH_1).name())).isFalse();
+		}
+	}
+
+	@Test
+	void missingWorkingFileDoesNotMatchBlob() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final RevCommit head = commit(git, PATH_1, "version 1");
+
+			assertThat(new GitClientImpl(git.getRepository()).workingFileMatchesBlob(PATH_2, blobId(git, head, PATH_1).name())).isFalse();
+		}
+	}
+
+	@Test
+	void diffComparesTheIndexRatherThanTheWorkingDirectory() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			commit(git, PATH_1, "version 1");
+			commit(git, PATH_2, "settings 1");
+			final Ref otherBranch = git.branchCreate().setName("other").call();
+			writeFile(PATH_1, "version 2");
+			git.add().addFilepattern(PATH_1).call();
+			writeFile(PATH_2, "settings 2");
+
+			final List<DiffEntry> diff = new GitClientImpl(git.getRepository()).getDiff(otherBranch);
+
+			assertThat(diff).extracting(DiffEntry::getNewPath, DiffEntry::getChangeType)
+					.containsExactly(tuple(PATH_1, DiffEntry.ChangeType.MODIFY));
+		}
+	}
+
+	@Test
+	void upstreamChangedPathsOfConflictingMergeAreThoseChangedSinceTheMergeBase() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final Ref upstreamBranch = commitUpstreamChanges(git);
+			commit(git, PATH_1, "version 2 local");
+
+			assertThat(git.merge().include(upstreamBranch).call().getMergeStatus()).isEqualTo(MergeResult.MergeStatus.CONFLICTING);
+
+			assertThat(new GitClientImpl(git.getRepository()).getUpstreamChangedPaths(upstreamBranch)).contains(Set.of(PATH_1, PATH_2));
+		}
+	}
+
+	@Test
+	void upstreamChangedPathsOfCommittedMergeAreThoseChangedSinceTheMergeBase() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final Ref upstreamBranch = commitUpstreamChanges(git);
+			commit(git, REVERTED_PATH, "local");
+
+			assertThat(git.merge().include(upstreamBranch).call().getMergeStatus()).isEqualTo(MergeResult.MergeStatus.MERGED);
+
+			assertThat(new GitClientImpl(git.getRepository()).getUpstreamChangedPaths(upstreamBranch)).contains(Set.of(PATH_1, PATH_2));
+		}
+	}
+
+	@Test
+	void packedBlobsAreGroupedInPackOrderAndWrittenThroughOneReader() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final Map<String, String> contentsByPath = new LinkedHashMap<>();
+			contentsByPath.put(PATH_1, "version 1");
+			contentsByPath.put(PATH_2, "settings");
+			contentsByPath.put(ROOT_PATH, "root");
+			contentsByPath.put(REVERTED_PATH, "extensions");
+			RevCommit head = null;
+			for (final Map.Entry<String, String> contents : contentsByPath.entrySet()) {
+				head = commit(git, contents.getKey(), contents.getValue());
+			}
+			git.gc().call();
+			final RevCommit looseHead = commit(git, DELETED_PATH, "loose");
+			final String looseSha = blobId(git, looseHead, DELETED_PATH).name();
+			final Map<String, String> contentsBySha = new HashMap<>();
+			for (final Map.Entry<String, String> contents : contentsByPath.entrySet()) {
+				contentsBySha.put(blobId(git, head, contents.getKey()).name(), contents.getValue());
+			}
+			final List<Pack> packs = new ArrayList<>(((ObjectDirectory) git.getRepository().getObjectDatabase()).getPacks());
+			assertThat(packs).hasSize(1);
+			final Map<String, Long> offsets = new HashMap<>();
+			for (final String sha : contentsBySha.keySet()) {
+				offsets.put(sha, packs.get(0).getIndex().findOffset(ObjectId.fromString(sha)));
+			}
+			final List<String> shasInPackOrder = new ArrayList<>(contentsBySha.keySet());
+			shasInPackOrder.sort(Comparator.comparingLong(offsets::get));
+			final List<String> requestedShas = new ArrayList<>(shasInPackOrder);
+			Collections.reverse(requestedShas);
+			requestedShas.addAll(Arrays.asList(looseSha, requestedShas.get(0), null));
+			final GitClientImpl gitClient = new GitClientImpl(git.getRepository());
+
+			final List<List<String>> groups = gitClient.groupByPack(requestedShas);
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			gitClient.withBlobReadScope(() -> gitClient.withBlobReadScope(() -> groups.get(0).forEach(sha ->
+					gitClient.writeBlobContents(sha, outputStream))));
+
+			assertThat(groups).containsExactly(shasInPackOrder, Collections.singletonList(looseSha));
+			assertThat(outputStream.toString(StandardCharsets.UTF_8))
+					.isEqualTo(shasInPackOrder.stream().map(contentsBySha::get).collect(Collectors.joining()));
+		}
+	}
+
+	/**
+	 * Commits a shared history, then changes two of its paths on an upstream branch, leaving the original branch checked out.
+	 */
+	private static Ref commitUpstreamChanges(final Git git) throws Exception {
+		commit(git, ROOT_PATH, "root");
+		commit(git, PATH_1, "version 1");
+		final String mainBranch = git.getRepository().getBranch();
+		git.checkout().setCreateBranch(true).setName("upstream").call();
+		commit(git, PATH_1, "version 2 upstream");
+		commit(git, PATH_2, "settings upstream");
+		git.checkout().setName(mainBranch).call();
+		return git.getRepository().exactRef(Constants.R_HEADS + "upstream");
+	}
+
+	private void writeFile(final String path, final String contents) throws Exception {
+		Files.write(new File(repoDir, path).toPath(), contents.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String readFile(final String path) throws Exception {
+		return new String(Files.readAllBytes(new File(repoDir, path).toPath()), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,76 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.elasticpath.tools.smcupgrader.Change;
+import com.elasticpath.tools.smcupgrader.ChangeType;
+import com.elasticpath.tools.smcupgrader.FilePermissions;
+import com.elasticpath.tools.smcupgrader.RecordedResolution;
+
+class RecordedResolutionStoreTest {
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final ObjectId MERGE_HEAD = ObjectId.fromString("1111111111111111111111111111111111111111");
+	private static final String BASE_SHA = "0b8e30a3f522228015bc0d0486e1b68fd932b4b6";
+	private static final String OUR_SHA = "f68ebaca5b557abdfc5b8af362978873f3c3bbab";
+	private static final String THEIR_SHA = "cc7dd7fd1bdf84c5aa333a0027b7e1d4f7a3bb36";
+	private static final String RESOLVED_SHA = "a952b2e04ebc61a64eb7c7f542ee9b2de9888370";
+
+	@TempDir
+	Path storeDir;
+
+	@Test
+	void resolutionsOfPendingConflictsAreRecordedAndReloadedByLaterRuns() {
+		final Change conflict = new Change(PATH_1, ChangeType.UPDATED, ChangeType.UPDATED, THEIR_SHA, OUR_SHA, null, BASE_SHA);
+		final Change conflictWithoutBase = new Change(PATH_1, ChangeType.UPDATED, ChangeType.UPDATED, THEIR_SHA, OUR_SHA, null, null);
+		final RecordedResolution resolution = new RecordedResolution(RESOLVED_SHA, new FilePermissions(true, true, true));
+
+		final RecordedResolutionStore store = new RecordedResolutionStore(storeDir);
+		assertThat(store.getPendingConflicts()).isEmpty();
+		store.setPendingConflicts(MERGE_HEAD, Collections.singletonList(conflict));
+
+		final RecordedResolutionStore.PendingConflicts pendingConflicts = new RecordedResolutionStore(storeDir).getPendingConflicts().get();
+		assertThat(pendingConflicts.getMergeHead()).isEqualTo(MERGE_HEAD);
+		assertThat(pendingConflicts.getConflictKeysByPath()).containsOnlyKeys(PATH_1);
+		store.put(pendingConflicts.getConflictKeysByPath().get(PATH_1), resolution);
+		store.clearPendingConflicts();
+
+		final RecordedResolutionStore reloadedStore = new RecordedResolutionStore(storeDir);
+		assertThat(reloadedStore.getPendingConflicts()).isEmpty();
+		assertThat(reloadedStore.get(conflict)).contains(resolution);
+		assertThat(reloadedStore.get(conflictWithoutBase))
+				.as("Conflicts are only matched when their base, ours and theirs contents are all the same")
+				.isEmpty();
+	}
+
+	@Test
+	void resolutionsRememberedInMemoryAreNotRecorded() {
+		final Change conflict = new Change(PATH_1, ChangeType.UPDATED, ChangeType.UPDATED, THEIR_SHA, OUR_SHA, null, BASE_SHA);
+		final RecordedResolution resolution = new RecordedResolution(RESOLVED_SHA, new FilePermissions(true, true, false));
+
+		final RecordedResolutionStore store = new RecordedResolutionStore(storeDir);
+		store.setPendingConflicts(MERGE_HEAD, Collections.singletonList(conflict));
+		store.putInMemory(store.getPendingConflicts().get().getConflictKeysByPath().get(PATH_1), resolution);
+
+		assertThat(store.get(conflict)).contains(resolution);
+		assertThat(new RecordedResolutionStore(storeDir).get(conflict)).isEmpty();
+	}
+
+	@Test
+	void deletionIsRecorded() {
+		final Change conflict = new Change(PATH_1, ChangeType.DELETED, ChangeType.UPDATED, null, OUR_SHA, null, BASE_SHA);
+		final RecordedResolution deletion = new RecordedResolution(null, null);
+
+		final RecordedResolutionStore store = new RecordedResolutionStore(storeDir);
+		store.setPendingConflicts(MERGE_HEAD, Collections.singletonList(conflict));
+		store.put(store.getPendingConflicts().get().getConflictKeysByPath().get(PATH_1), deletion);
+
+		assertThat(new RecordedResolutionStore(storeDir).get(conflict)).contains(deletion);
+	}
+}
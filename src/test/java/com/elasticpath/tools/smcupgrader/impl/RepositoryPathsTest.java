@@ -0,0 +1,18 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RepositoryPathsTest {
+	@Test
+	void parentDirectoriesAreListedOutermostFirst() {
+		assertThat(RepositoryPaths.getParentDirectories("extensions/maven/individual-settings.xml"))
+				.containsExactly("extensions", "extensions/maven");
+	}
+
+	@Test
+	void fileAtTheRootHasNoParentDirectories() {
+		assertThat(RepositoryPaths.getParentDirectories("pom.xml")).isEmpty();
+	}
+}
@@ -0,0 +1,51 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+/**
+ * Builds the contents of git repositories used as test fixtures.
+ */
+public final class TestRepositoryUtil {
+	private TestRepositoryUtil() {
+		// Utility class
+	}
+
+	/**
+	 * Writes the given contents to a file in the working directory of the given repository, and commits it.
+	 *
+	 * @param git      the repository
+	 * @param path     the path of the file, relative to the working directory
+	 * @param contents the contents of the file, also used as the commit message
+	 * @return the commit
+	 * @throws Exception if the file can't be written or committed
+	 */
+	public static RevCommit commit(final Git git, final String path, final String contents) throws Exception {
+		final File file = new File(git.getRepository().getWorkTree(), path);
+		Files.createDirectories(file.getParentFile().toPath());
+		Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		git.add().addFilepattern(path).call();
+		return git.commit().setMessage(contents).setSign(false).call();
+	}
+
+	/**
+	 * Returns the id of the blob or tree at the given path in the given commit.
+	 *
+	 * @param git    the repository
+	 * @param commit the commit
+	 * @param path   the path of a file or directory
+	 * @return the object id
+	 * @throws Exception if the commit can't be read
+	 */
+	public static ObjectId blobId(final Git git, final RevCommit commit, final String path) throws Exception {
+		try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), path, commit.getTree())) {
+			return treeWalk.getObjectId(0);
+		}
+	}
+}
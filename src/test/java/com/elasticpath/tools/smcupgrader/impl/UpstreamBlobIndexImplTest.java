@@ -0,0 +1,68 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.blobId;
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.commit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UpstreamBlobIndexImplTest {
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String PATH_2 = "extensions/maven/individual-settings.xml";
+	private static final String DIRECTORY_1 = "bill-of-materials";
+
+	@TempDir
+	File repoDir;
+
+	@Test
+	void indexContainsEveryHistoricalBlobAtEachPath() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final RevCommit first = commit(git, PATH_1, "version 1");
+			final RevCommit second = commit(git, PATH_1, "version 2");
+			final RevCommit third = commit(git, PATH_2, "settings");
+
+			final UpstreamBlobIndexImpl index = UpstreamBlobIndexImpl.build(git.getRepository(), Collections.singleton(third));
+
+			assertThat(index.contains(PATH_1, blobId(git, first, PATH_1).name())).isTrue();
+			assertThat(index.contains(PATH_1, blobId(git, second, PATH_1).name())).isTrue();
+			assertThat(index.contains(PATH_2, blobId(git, third, PATH_2).name())).isTrue();
+			assertThat(index.contains(PATH_2, blobId(git, first, PATH_1).name()))
+					.as("Blobs are only matched at the path where they existed")
+					.isFalse();
+			assertThat(index.contains(PATH_1, "contentHash1")).isFalse();
+			assertThat(index.getRevisionCount(PATH_1)).isEqualTo(2);
+			assertThat(index.getRevisionCount(PATH_2)).isEqualTo(1);
+			assertThat(index.getRevisionCount("unknown.txt")).isZero();
+		}
+	}
+
+	@Test
+	void indexContainsEveryHistoricalTreeAtEachDirectory() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final RevCommit first = commit(git, PATH_1, "version 1");
+			final RevCommit second = commit(git, PATH_1, "version 2");
+			final RevCommit third = commit(git, PATH_2, "settings");
+
+			final UpstreamBlobIndexImpl index = UpstreamBlobIndexImpl.build(git.getRepository(), Collections.singleton(third));
+
+			assertThat(index.containsTree(DIRECTORY_1, blobId(git, first, DIRECTORY_1).name())).isTrue();
+			assertThat(index.containsTree(DIRECTORY_1, blobId(git, second, DIRECTORY_1).name())).isTrue();
+			assertThat(index.containsTree("extensions", blobId(git, third, "extensions").name())).isTrue();
+			assertThat(index.containsTree("extensions/maven", blobId(git, third, "extensions/maven").name())).isTrue();
+			assertThat(index.containsTree("extensions/maven", blobId(git, second, DIRECTORY_1).name()))
+					.as("Trees are only matched at the directory where they existed")
+					.isFalse();
+			assertThat(index.contains(DIRECTORY_1, blobId(git, first, DIRECTORY_1).name()))
+					.as("Trees are not matched as file contents")
+					.isFalse();
+			assertThat(index.getRevisionCount(PATH_1)).isEqualTo(2);
+		}
+	}
+
+}
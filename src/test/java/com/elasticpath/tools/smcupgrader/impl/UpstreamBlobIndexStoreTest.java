@@ -0,0 +1,57 @@
+package com.elasticpath.tools.smcupgrader.impl;
+
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.blobId;
+import static com.elasticpath.tools.smcupgrader.impl.TestRepositoryUtil.commit;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.elasticpath.tools.smcupgrader.UpstreamBlobIndex;
+
+class UpstreamBlobIndexStoreTest {
+	private static final String REMOTE_NAME = "smc-upstream";
+	private static final String PATH_1 = "bill-of-materials/pom.xml";
+	private static final String PATH_2 = "extensions/maven/individual-settings.xml";
+
+	@TempDir
+	File repoDir;
+
+	@TempDir
+	Path storeDir;
+
+	@Test
+	void storedIndexIsReusedAndUpdatedWithNewCommits() throws Exception {
+		try (Git git = Git.init().setDirectory(repoDir).call()) {
+			final UpstreamBlobIndexStore store = new UpstreamBlobIndexStore(git.getRepository(), storeDir);
+
+			final RevCommit first = commit(git, PATH_1, "version 1");
+			final UpstreamBlobIndex initialIndex = store.load(REMOTE_NAME, Collections.singleton(first.getId()));
+			assertThat(initialIndex.contains(PATH_1, blobId(git, first, PATH_1).name())).isTrue();
+
+			final UpstreamBlobIndex reusedIndex = store.load(REMOTE_NAME, Collections.singleton(first.getId()));
+			assertThat(reusedIndex).isInstanceOf(MappedUpstreamBlobIndex.class);
+			assertThat(reusedIndex.contains(PATH_1, blobId(git, first, PATH_1).name())).isTrue();
+
+			final RevCommit second = commit(git, PATH_1, "version 2");
+			final RevCommit third = commit(git, PATH_2, "settings");
+			final UpstreamBlobIndex updatedIndex = store.load(REMOTE_NAME, Collections.singleton(third.getId()));
+			assertThat(updatedIndex.contains(PATH_1, blobId(git, first, PATH_1).name())).isTrue();
+			assertThat(updatedIndex.contains(PATH_1, blobId(git, second, PATH_1).name())).isTrue();
+			assertThat(updatedIndex.contains(PATH_2, blobId(git, third, PATH_2).name())).isTrue();
+			assertThat(updatedIndex.contains(PATH_2, blobId(git, second, PATH_1).name())).isFalse();
+			assertThat(updatedIndex.getRevisionCount(PATH_1)).isEqualTo(2);
+			assertThat(updatedIndex.getRevisionCount(PATH_2)).isEqualTo(1);
+			assertThat(updatedIndex.getRevisionCount("unknown.txt")).isZero();
+			assertThat(updatedIndex.containsTree("bill-of-materials", blobId(git, first, "bill-of-materials").name())).isTrue();
+			assertThat(updatedIndex.containsTree("extensions/maven", blobId(git, third, "extensions/maven").name())).isTrue();
+		}
+	}
+
+}